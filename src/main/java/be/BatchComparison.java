@@ -0,0 +1,227 @@
+package be;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Comparaison d'une série de fichiers de graphes en pipeline, au lieu de la boucle séquentielle
+ * parseGraph -> PageRank -> méthodes des tests de similarité.
+ * <p>
+ * Étages : lecture/analyse des graphes suivants (plusieurs threads), chargement ou calcul des scores,
+ * puis exécution de chaque méthode comme une tâche indépendante sur un pool de calcul.
+ * Les étages communiquent par des files bornées et au plus {@code window} fichiers sont en cours à la fois
+ * (lus mais pas encore écrits) : un étage rapide attend les autres au lieu d'accumuler des graphes en mémoire.
+ * Les résultats sont rendus dans l'ordre de la liste de fichiers, quel que soit l'ordre de fin des calculs.
+ *
+ * @param <G> type du graphe (DirectedMultigraph, CsrGraph...)
+ * @param <S> type des scores (Map de PageRank, double[]...)
+ */
+public final class BatchComparison<G, S> {
+
+    public interface GraphLoader<G> {
+        G load(File file) throws Exception;
+    }
+
+    public interface ScoreLoader<G, S> {
+        S scores(File file, G graph) throws Exception;
+    }
+
+    // Une méthode compare le graphe lu à la référence, capturée par la lambda
+    public interface Method<G, S> {
+        double compute(G graph, S scores) throws Exception;
+    }
+
+    public interface ResultWriter<G> {
+        void write(Result<G> result) throws IOException;
+    }
+
+    // Valeur de chaque méthode (dans l'ordre de la liste des méthodes) et temps de calcul en nanosecondes
+    public record Result<G>(File file, G graph, double[] values, long[] nanos) {
+    }
+
+    private record Item<G, S>(int index, File file, G graph, S scores) {
+    }
+
+    private final GraphLoader<G> graphLoader;
+    private final ScoreLoader<G, S> scoreLoader;
+    private final List<Map.Entry<String, Method<G, S>>> methods;
+    private int parseThreads = 2;
+    private int scoreThreads = 1;
+    private int computeThreads = Runtime.getRuntime().availableProcessors();
+    private int window = 4;
+
+    public BatchComparison(GraphLoader<G> graphLoader, ScoreLoader<G, S> scoreLoader,
+                           List<Map.Entry<String, Method<G, S>>> methods) {
+        this.graphLoader = graphLoader;
+        this.scoreLoader = scoreLoader;
+        this.methods = List.copyOf(methods);
+    }
+
+    public BatchComparison<G, S> parseThreads(int threads) {
+        this.parseThreads = positive(threads);
+        return this;
+    }
+
+    public BatchComparison<G, S> scoreThreads(int threads) {
+        this.scoreThreads = positive(threads);
+        return this;
+    }
+
+    public BatchComparison<G, S> computeThreads(int threads) {
+        this.computeThreads = positive(threads);
+        return this;
+    }
+
+    // Nombre maximal de fichiers en cours (lus, en attente de scores ou de calcul, ou pas encore écrits)
+    public BatchComparison<G, S> window(int files) {
+        this.window = positive(files);
+        return this;
+    }
+
+    public List<String> methodNames() {
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<String, Method<G, S>> method : methods) names.add(method.getKey());
+        return names;
+    }
+
+    /**
+     * Traite les fichiers et passe chaque résultat à {@code writer}, dans l'ordre de {@code files}, depuis le thread
+     * appelant. La première erreur (lecture, scores, méthode ou écriture) interrompt le pipeline et est relancée.
+     */
+    public void run(List<File> files, ResultWriter<G> writer) throws IOException {
+        int n = files.size();
+        List<CompletableFuture<Result<G>>> results = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) results.add(new CompletableFuture<>());
+
+        Semaphore inFlight = new Semaphore(window);
+        BlockingQueue<Item<G, S>> parsed = new ArrayBlockingQueue<>(window + parseThreads);
+        BlockingQueue<Item<G, S>> scored = new ArrayBlockingQueue<>(window + scoreThreads);
+        Item<G, S> end = new Item<>(-1, null, null, null);
+        AtomicInteger nextFile = new AtomicInteger();
+        AtomicInteger activeParsers = new AtomicInteger(parseThreads);
+        AtomicInteger activeScorers = new AtomicInteger(scoreThreads);
+
+        ExecutorService stages = Executors.newFixedThreadPool(parseThreads + scoreThreads + 1);
+        ExecutorService compute = Executors.newFixedThreadPool(computeThreads);
+        try {
+            // Étage 1 : lecture des graphes, dans l'ordre de la liste mais sur plusieurs threads
+            for (int t = 0; t < parseThreads; t++) {
+                stages.execute(stage(results, () -> {
+                    while (true) {
+                        inFlight.acquire();
+                        int i = nextFile.getAndIncrement();
+                        if (i >= n) break;
+                        File file = files.get(i);
+                        try {
+                            parsed.put(new Item<>(i, file, graphLoader.load(file), null));
+                        } catch (Exception e) {
+                            results.get(i).completeExceptionally(e);
+                        }
+                    }
+                    if (activeParsers.decrementAndGet() == 0) {
+                        for (int s = 0; s < scoreThreads; s++) parsed.put(end);
+                    }
+                }));
+            }
+
+            // Étage 2 : scores (lecture d'un fichier de scores ou calcul de PageRank)
+            for (int t = 0; t < scoreThreads; t++) {
+                stages.execute(stage(results, () -> {
+                    for (Item<G, S> item = parsed.take(); item != end; item = parsed.take()) {
+                        try {
+                            S scores = scoreLoader.scores(item.file(), item.graph());
+                            scored.put(new Item<>(item.index(), item.file(), item.graph(), scores));
+                        } catch (Exception e) {
+                            results.get(item.index()).completeExceptionally(e);
+                        }
+                    }
+                    if (activeScorers.decrementAndGet() == 0) scored.put(end);
+                }));
+            }
+
+            // Étage 3 : une tâche par méthode sur le pool de calcul, regroupées par fichier
+            stages.execute(stage(results, () -> {
+                for (Item<G, S> item = scored.take(); item != end; item = scored.take()) {
+                    dispatch(item, compute, results.get(item.index()));
+                }
+            }));
+
+            // Écriture dans l'ordre des fichiers ; libérer une place laisse l'étage 1 lire le fichier suivant
+            for (int i = 0; i < n; i++) {
+                Result<G> result = results.get(i).get();
+                writer.write(result);
+                inFlight.release();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Comparaison interrompue", e);
+        } finally {
+            stages.shutdownNow();
+            compute.shutdownNow();
+        }
+    }
+
+    private void dispatch(Item<G, S> item, ExecutorService compute, CompletableFuture<Result<G>> result) {
+        int m = methods.size();
+        double[] values = new double[m];
+        long[] nanos = new long[m];
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[m];
+        for (int k = 0; k < m; k++) {
+            int method = k;
+            tasks[k] = CompletableFuture.runAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    values[method] = methods.get(method).getValue().compute(item.graph(), item.scores());
+                } catch (Exception e) {
+                    throw new IllegalStateException("Méthode " + methods.get(method).getKey() + " sur " + item.file(), e);
+                }
+                nanos[method] = System.nanoTime() - start;
+            }, compute);
+        }
+        // allOf établit la relation happens-before entre les écritures des tâches et le lecteur du résultat
+        CompletableFuture.allOf(tasks).whenComplete((ignored, error) -> {
+            if (error instanceof CompletionException wrapped && wrapped.getCause() != null) error = wrapped.getCause();
+            if (error != null) result.completeExceptionally(error);
+            else result.complete(new Result<>(item.file(), item.graph(), values, nanos));
+        });
+    }
+
+    private interface StageBody {
+        void run() throws Exception;
+    }
+
+    // Une erreur inattendue d'un étage fait échouer tous les fichiers encore en attente
+    private static <G> Runnable stage(List<CompletableFuture<Result<G>>> results, StageBody body) {
+        return () -> {
+            try {
+                body.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                for (CompletableFuture<Result<G>> result : results) result.completeExceptionally(e);
+            }
+        };
+    }
+
+    private static int positive(int value) {
+        if (value <= 0) throw new IllegalArgumentException("La valeur doit être positive : " + value);
+        return value;
+    }
+}
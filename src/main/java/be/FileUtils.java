@@ -1,5 +1,10 @@
 package be;
 
+import be.graph.VertexDictionary;
+import be.pagerank.ScoreStore;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
@@ -30,6 +35,42 @@ public class FileUtils {
         }
         return scores;
     }
+    // Scores binaires alignés sur les sommets (voir ScoreStore) : remplace saveScoresToCSV
+    public static void saveScores(VertexDictionary dictionary, double[] scores, String filename) throws IOException {
+        ScoreStore.save(dictionary, scores, Path.of(filename));
+    }
+
+    // Variante jgrapht : les identifiants suivent l'ordre de vertexSet(), comme après parseGraph/loadGraph
+    public static void saveScores(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> scores, String filename) throws IOException {
+        VertexDictionary dictionary = new VertexDictionary(graph.vertexSet().toArray(new String[0]));
+        double[] aligned = new double[dictionary.size()];
+        for (int v = 0; v < aligned.length; v++) {
+            aligned[v] = scores.getOrDefault(dictionary.label(v), 0.0);
+        }
+        saveScores(dictionary, aligned, filename);
+    }
+
+    // Relit des scores binaires pour un graphe jgrapht ; l'empreinte garantit qu'ils ont été calculés sur ce graphe.
+    // Si le .prs n'existe pas encore (CSV produits avant ScoreStore, pas encore convertis par GeneratePagerank
+    // --from-csv), le CSV de même nom est lu à la place.
+    public static Map<String, Double> readScores(String filename, DirectedMultigraph<String, DefaultEdge> graph) throws IOException {
+        Path path = Path.of(filename);
+        if (!Files.exists(path) && filename.endsWith(".prs")) {
+            String csv = filename.substring(0, filename.length() - ".prs".length()) + ".csv";
+            if (Files.exists(Path.of(csv))) {
+                try {
+                    return readScoresFromCSV(csv);
+                } catch (IOException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException("Lecture des scores " + csv, e);
+                }
+            }
+        }
+        VertexDictionary dictionary = new VertexDictionary(graph.vertexSet().toArray(new String[0]));
+        return ScoreStore.open(path, dictionary).toMap(dictionary);
+    }
+
     public static void saveScoresToCSV(Map<String, Double> scores, String filename) throws Exception {
         try (PrintWriter writer = new PrintWriter(filename)) {
             for (Map.Entry<String, Double> entry : scores.entrySet()) {
@@ -1,14 +1,25 @@
 package be;
 
+import be.graph.CompactGraph;
+import be.graph.CompressedGraph;
+import be.graph.CsrGraph;
+import be.pagerank.CompactPageRank;
+import be.pagerank.IncrementalPageRank;
+import be.pagerank.ParallelPageRank;
 import org.jgrapht.alg.scoring.PageRank;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DirectedMultigraph;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 import static be.Main.parseGraph;
 
@@ -20,13 +31,35 @@ public class GeneratePagerank {
         for (File file : dir.listFiles()) {
             if (file.isDirectory()) {
                 result.addAll(getAllTxtFiles(file)); // récursion
-            } else if (file.getName().endsWith(".txt")) {
+            } else if (file.getName().endsWith(".txt") || file.getName().endsWith(".txt.gz")) {
                 result.add(file);
             }
         }
         return result;
     }
+
+    // Les scores sont écrits au format binaire (pageRanks/pagerank_scores_X.prs, voir ScoreStore) et calculés
+    // par ParallelPageRank sur le CSR, sur tous les cœurs, avec la variation maximale affichée à chaque itération.
+    // Option --jgrapht : calcul de référence avec org.jgrapht.alg.scoring.PageRank (un seul thread).
+    // Option --webgraph : chaque liste d'arêtes est convertie une seule fois en BVGraph (dossier webgraph/)
+    // et PageRank est calculé sur le graphe compressé projeté en mémoire.
+    // Option --csv : écrit aussi l'ancien CSV. Option --from-csv : convertit les CSV existants sans recalculer PageRank.
+    // Option --reference=<liste d'arêtes> : les graphes sont des variantes de cette référence ; leur PageRank part
+    // des scores de la référence et ne propage que le résidu dû au delta d'arêtes (IncrementalPageRank).
     public static void main(String[] args) throws Exception {
+        List<String> options = Arrays.asList(args);
+        boolean jgrapht = options.contains("--jgrapht");
+        boolean webgraph = options.contains("--webgraph");
+        boolean csv = options.contains("--csv");
+        boolean fromCsv = options.contains("--from-csv");
+        String referencePath = options.stream().filter(o -> o.startsWith("--reference="))
+                .map(o -> o.substring("--reference=".length())).findFirst().orElse(null);
+        CsrGraph referenceGraph = null;
+        double[] referenceScores = null;
+        if (referencePath != null) {
+            referenceGraph = CsrGraph.load(Path.of(referencePath));
+            referenceScores = new ParallelPageRank(0.85).scores(referenceGraph);
+        }
 
         List<String> dossierPaths = Arrays.asList(
                 "output/small_graphs"
@@ -40,9 +73,58 @@ public class GeneratePagerank {
         FileUtils.ensureDirectoryExists("pageRanks");
         for (File f : allTxtFiles) {
             System.out.println(f.getName());
-            DirectedMultigraph<String, DefaultEdge>  reference = parseGraph(f.getAbsolutePath());
-            PageRank<String, DefaultEdge>  pr1 = new PageRank<>(reference, 0.85);
-            FileUtils.saveScoresToCSV(pr1.getScores(), "pageRanks/pagerank_scores_"+ f.getName() + ".csv");
+            String base = "pageRanks/pagerank_scores_" + f.getName();
+            if (fromCsv) {
+                // Même numérotation que parseGraph : ordre de première apparition dans la liste d'arêtes
+                CompactGraph graph = CsrGraph.load(f.toPath());
+                double[] scores = graph.alignScores(FileUtils.readScoresFromCSV(base + ".csv"));
+                FileUtils.saveScores(graph.dictionary(), scores, base + ".prs");
+            } else if (webgraph) {
+                CompactGraph compressed = loadCompressed(f.toPath(), Path.of("webgraph"));
+                double[] scores = CompactPageRank.scores(compressed, 0.85);
+                FileUtils.saveScores(compressed.dictionary(), scores, base + ".prs");
+                if (csv) FileUtils.saveScoresToCSV(toMap(compressed, scores), base + ".csv");
+            } else if (referenceGraph != null) {
+                CsrGraph graph = CsrGraph.load(f.toPath());
+                double[] initial = IncrementalPageRank.warmStart(graph, referenceGraph, referenceScores);
+                double[] scores = IncrementalPageRank.update(graph, initial, 0.85);
+                FileUtils.saveScores(graph.dictionary(), scores, base + ".prs");
+                if (csv) FileUtils.saveScoresToCSV(toMap(graph, scores), base + ".csv");
+            } else if (!jgrapht) {
+                CsrGraph graph = CsrGraph.load(f.toPath());
+                double[] scores = new ParallelPageRank(0.85)
+                        .onIteration((iteration, maxChange, nanos) -> System.out.printf(Locale.US,
+                                "  itération %d : variation max %.3e (%d ms)%n", iteration, maxChange, nanos / 1_000_000))
+                        .scores(graph);
+                FileUtils.saveScores(graph.dictionary(), scores, base + ".prs");
+                if (csv) FileUtils.saveScoresToCSV(toMap(graph, scores), base + ".csv");
+            } else {
+                DirectedMultigraph<String, DefaultEdge>  reference = parseGraph(f.getAbsolutePath());
+                PageRank<String, DefaultEdge>  pr1 = new PageRank<>(reference, 0.85);
+                FileUtils.saveScores(reference, pr1.getScores(), base + ".prs");
+                if (csv) FileUtils.saveScoresToCSV(pr1.getScores(), base + ".csv");
+            }
+        }
+    }
+
+    // Charge la version BVGraph d'une liste d'arêtes, en la (re)créant si elle manque ou si la liste est plus récente
+    public static CompressedGraph loadCompressed(Path edgeList, Path webgraphDir) throws IOException {
+        Files.createDirectories(webgraphDir);
+        String name = edgeList.getFileName().toString();
+        Path basename = webgraphDir.resolve(name.endsWith(".txt") ? name.substring(0, name.length() - 4) : name);
+        Path graphFile = Path.of(basename + ".graph");
+        if (!Files.exists(graphFile)
+                || Files.getLastModifiedTime(graphFile).compareTo(Files.getLastModifiedTime(edgeList)) < 0) {
+            CompressedGraph.store(edgeList, basename);
+        }
+        return CompressedGraph.load(basename);
+    }
+
+    private static Map<String, Double> toMap(CompactGraph graph, double[] scores) {
+        Map<String, Double> map = new HashMap<>(2 * scores.length);
+        for (int v = 0; v < scores.length; v++) {
+            map.put(graph.label(v), scores[v]);
         }
+        return map;
     }
 }
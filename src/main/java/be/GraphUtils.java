@@ -1,5 +1,9 @@
 package be;
 
+import be.graph.CsrGraph;
+import be.graph.EdgeListLoader;
+import be.graph.GraphSnapshot;
+import be.graph.VertexFamily;
 import org.jgrapht.Graph;
 import org.jgrapht.Graphs;
 import org.jgrapht.alg.connectivity.BiconnectivityInspector;
@@ -10,6 +14,7 @@ import org.jgrapht.graph.*;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -99,6 +104,15 @@ public class GraphUtils {
         }
     }
 
+    // Sauve le graphe au format binaire (GraphSnapshot), rechargeable sans analyse par loadGraph / CsrGraph.load
+    public static void saveGraphSnapshot(DirectedMultigraph<String, DefaultEdge> graph, String filename) {
+        try {
+            GraphSnapshot.save(CsrGraph.fromGraph(graph), Path.of(filename));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static DirectedMultigraph<String, DefaultEdge> connectedRandomSubgraph(
             DirectedMultigraph<String, DefaultEdge> base, int n, double edgeFraction) {
 
@@ -223,23 +237,17 @@ public class GraphUtils {
         return subgraph;
     }
 
-    // Charge un graphe à partir d'un fichier (format edge list, 1 arc par ligne: src dest)
+    // Charge un graphe à partir d'un fichier (format edge list, 1 arc par ligne: src dest, ou instantané binaire)
     public static DirectedMultigraph<String, DefaultEdge> loadGraph(String file) {
-        DirectedMultigraph<String, DefaultEdge> graph = new DirectedMultigraph<>(DefaultEdge.class);
-        try (Scanner sc = new Scanner(new java.io.File(file))) {
-            while (sc.hasNextLine()) {
-                String line = sc.nextLine();
-                if (line.isBlank() || line.startsWith("#")) continue;
-                String[] parts = line.split("\\s+");
-                if (parts.length < 2) continue;
-                graph.addVertex(parts[0]);
-                graph.addVertex(parts[1]);
-                graph.addEdge(parts[0], parts[1]);
+        try {
+            Path path = Path.of(file);
+            if (GraphSnapshot.isSnapshot(path)) {
+                return GraphSnapshot.open(path).toGraph();
             }
+            return EdgeListLoader.load(path, EdgeListLoader.Syntax.LENIENT).toGraph();
         } catch (IOException e) {
             throw new RuntimeException("Erreur de lecture du fichier " + file, e);
         }
-        return graph;
     }
 
     // Récupère la composante la plus fortement connectée (la plus grande par défaut ou de taille cible)
@@ -334,6 +342,13 @@ public class GraphUtils {
         return clone;
     }
 
+    // Variante pour une famille d'instantanés : les sommets de la clique sont ajoutés en fin de dictionnaire partagé
+    public static DirectedMultigraph<String, DefaultEdge> addDenseSubgraph(DirectedMultigraph<String, DefaultEdge> graph, int size, VertexFamily family) {
+        DirectedMultigraph<String, DefaultEdge> clone = addDenseSubgraph(graph, size);
+        internNewVertices(graph, clone, family);
+        return clone;
+    }
+
     // Duplique un nœud (ajoute un jumeau avec les mêmes arcs sortants/entrants)
     public static DirectedMultigraph<String, DefaultEdge> cloneNode(DirectedMultigraph<String, DefaultEdge> graph, String node) {
         if (!graph.containsVertex(node)) return (DirectedMultigraph<String, DefaultEdge>) graph.clone();
@@ -353,6 +368,13 @@ public class GraphUtils {
         return clone;
     }
 
+    // Variante pour une famille d'instantanés : le jumeau reçoit un identifiant en fin de dictionnaire partagé
+    public static DirectedMultigraph<String, DefaultEdge> cloneNode(DirectedMultigraph<String, DefaultEdge> graph, String node, VertexFamily family) {
+        DirectedMultigraph<String, DefaultEdge> clone = cloneNode(graph, node);
+        internNewVertices(graph, clone, family);
+        return clone;
+    }
+
     // Ajoute n nœuds isolés
     public static DirectedMultigraph<String, DefaultEdge> addIsolatedNodes(DirectedMultigraph<String, DefaultEdge> graph, int n) {
         DirectedMultigraph<String, DefaultEdge> clone = (DirectedMultigraph<String, DefaultEdge>) graph.clone();
@@ -362,6 +384,20 @@ public class GraphUtils {
         return clone;
     }
 
+    // Variante pour une famille d'instantanés : les nœuds isolés sont ajoutés en fin de dictionnaire partagé
+    public static DirectedMultigraph<String, DefaultEdge> addIsolatedNodes(DirectedMultigraph<String, DefaultEdge> graph, int n, VertexFamily family) {
+        DirectedMultigraph<String, DefaultEdge> clone = addIsolatedNodes(graph, n);
+        internNewVertices(graph, clone, family);
+        return clone;
+    }
+
+    // Les générateurs ci-dessus ne font qu'ajouter des sommets, et le clone conserve l'ordre d'insertion :
+    // les nouveaux sommets sont ceux qui suivent les sommets de l'original dans vertexSet().
+    private static void internNewVertices(DirectedMultigraph<String, DefaultEdge> original,
+                                          DirectedMultigraph<String, DefaultEdge> clone, VertexFamily family) {
+        clone.vertexSet().stream().skip(original.vertexSet().size()).forEachOrdered(family::intern);
+    }
+
     // Rewire : pourcentage d'arêtes sont réassignées aléatoirement, les degrés sortants sont conservés (approximatif)
     public static DirectedMultigraph<String, DefaultEdge> rewireEdgesPreserveDegree(DirectedMultigraph<String, DefaultEdge> graph, double frac) {
         DirectedMultigraph<String, DefaultEdge> clone = (DirectedMultigraph<String, DefaultEdge>) graph.clone();
@@ -1,45 +1,27 @@
 package be;
 
+import be.graph.EdgeListLoader;
+import be.graph.GraphSnapshot;
 import it.unimi.dsi.fastutil.ints.IntIntPair;
 import org.jgrapht.Graphs;
 import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DirectedMultigraph;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 public class Main {
+    // Chargement parallèle via fichier projeté en mémoire (voir EdgeListLoader), même sémantique qu'avant :
+    // une ligne à 1 jeton déclare un sommet isolé, les boucles ne sont pas ajoutées.
+    // Un instantané binaire (GraphSnapshot) est aussi accepté.
     public static  DirectedMultigraph<String, DefaultEdge> parseGraph(String filename) throws IOException {
-        DirectedMultigraph<String, DefaultEdge> G =
-                new DirectedMultigraph<>(DefaultEdge.class);
-
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty()) continue; // Ignore les lignes vides
-                String[] parts = line.split("\\s+");
-                if (parts.length == 1) {
-                    String su = parts[0].trim();
-                    if (!G.containsVertex(su)) G.addVertex(su);
-                } else if (parts.length == 2) {
-                    String su = parts[0].trim();
-                    String sv = parts[1].trim();
-                    if (!G.containsVertex(su)) G.addVertex(su);
-                    if (!G.containsVertex(sv)) G.addVertex(sv);
-                    if (!su.equals(sv)) {
-                        G.addEdge(su, sv);
-                    }
-                } else {
-                    System.err.println("Ligne non valide : " + line);
-                }
-            }
+        Path file = Path.of(filename);
+        if (GraphSnapshot.isSnapshot(file)) {
+            return GraphSnapshot.open(file).toGraph();
         }
-
-        return G;
+        return EdgeListLoader.load(file).toGraph();
     }
 
 
@@ -0,0 +1,64 @@
+package be.graph;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+
+import java.util.Map;
+
+/**
+ * Vue commune des graphes orientés à identifiants denses (0..n-1) : CSR en mémoire ou projeté
+ * ({@link CsrGraph}) et graphe compressé WebGraph ({@link CompressedGraph}).
+ * Les méthodes de similarité et PageRank n'utilisent que les successeurs, énumérés par ordre croissant.
+ */
+public interface CompactGraph {
+
+    VertexDictionary dictionary();
+
+    int vertexCount();
+
+    int edgeCount();
+
+    int outDegree(int v);
+
+    // Successeurs de v par ordre croissant (une arête multiple apparaît autant de fois qu'elle existe)
+    IntIterator successors(int v);
+
+    default String label(int v) {
+        return dictionary().label(v);
+    }
+
+    // Nombre de successeurs distincts de v (les arêtes multiples ne comptent qu'une fois)
+    default int distinctOutDegree(int v) {
+        IntIterator it = successors(v);
+        int count = 0;
+        int previous = -1;
+        while (it.hasNext()) {
+            int t = it.nextInt();
+            if (t != previous) count++;
+            previous = t;
+        }
+        return count;
+    }
+
+    default boolean hasEdge(int u, int v) {
+        IntIterator it = successors(u);
+        while (it.hasNext()) {
+            int t = it.nextInt();
+            if (t >= v) return t == v;
+        }
+        return false;
+    }
+
+    /**
+     * Aligne des scores indexés par libellé (ex. PageRank lu dans un CSV) sur les identifiants du graphe.
+     * Un sommet sans score reçoit 0.0.
+     */
+    default double[] alignScores(Map<String, Double> scores) {
+        VertexDictionary dictionary = dictionary();
+        double[] aligned = new double[vertexCount()];
+        for (int v = 0; v < aligned.length; v++) {
+            Double score = scores.get(dictionary.label(v));
+            aligned[v] = score != null ? score : 0.0;
+        }
+        return aligned;
+    }
+}
@@ -0,0 +1,135 @@
+package be.graph;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.webgraph.BVGraph;
+import it.unimi.dsi.webgraph.ImmutableGraph;
+import it.unimi.dsi.webgraph.LazyIntIterators;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Graphe compressé au format WebGraph (BVGraph), projeté en mémoire.
+ * Un graphe du web comme baidu-baike tient en quelques bits par arête au lieu de 32 pour le CSR,
+ * ce qui permet de garder plusieurs instantanés complets sur la même machine.
+ * <p>
+ * Fichiers d'un graphe de nom de base B : B.graph, B.offsets, B.properties (WebGraph) et B.labels
+ * (dictionnaire des sommets, voir {@link VertexDictionary#save}).
+ * <p>
+ * BVGraph impose des listes de successeurs strictement croissantes : les arêtes multiples sont fusionnées
+ * à la conversion, edgeCount() compte donc les arêtes distinctes.
+ * Les itérateurs WebGraph ne sont pas sûrs entre threads : utiliser {@link #copy()} par thread.
+ */
+public final class CompressedGraph implements CompactGraph {
+    private static final String LABELS_EXTENSION = ".labels";
+
+    private final BVGraph graph;
+    private final VertexDictionary dictionary;
+
+    private CompressedGraph(BVGraph graph, VertexDictionary dictionary) {
+        this.graph = graph;
+        this.dictionary = dictionary;
+    }
+
+    // Conversion unique d'un graphe (CSR, instantané...) vers BVGraph + dictionnaire
+    public static void store(CompactGraph source, Path basename) throws IOException {
+        BVGraph.store(new DistinctSuccessors(source), basename.toString());
+        source.dictionary().save(Path.of(basename + LABELS_EXTENSION));
+    }
+
+    // Conversion d'une liste d'arêtes texte (ou d'un instantané) sans passer par jgrapht
+    public static void store(Path edgeList, Path basename) throws IOException {
+        store(CsrGraph.load(edgeList), basename);
+    }
+
+    public static CompressedGraph load(Path basename) throws IOException {
+        BVGraph graph = BVGraph.loadMapped(basename.toString());
+        VertexDictionary dictionary = VertexDictionary.open(Path.of(basename + LABELS_EXTENSION));
+        return new CompressedGraph(graph, dictionary);
+    }
+
+    // Copie légère (données partagées) pour un usage depuis un autre thread
+    public CompressedGraph copy() {
+        return new CompressedGraph(graph.copy(), dictionary);
+    }
+
+    @Override
+    public VertexDictionary dictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public int vertexCount() {
+        return graph.numNodes();
+    }
+
+    @Override
+    public int edgeCount() {
+        return Math.toIntExact(graph.numArcs());
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return graph.outdegree(v);
+    }
+
+    @Override
+    public int distinctOutDegree(int v) {
+        return graph.outdegree(v);
+    }
+
+    @Override
+    public IntIterator successors(int v) {
+        return LazyIntIterators.eager(graph.successors(v));
+    }
+
+    /**
+     * Vue WebGraph d'un CompactGraph sans les arêtes multiples, utilisée uniquement pour la compression.
+     */
+    private static final class DistinctSuccessors extends ImmutableGraph {
+        private final CompactGraph source;
+
+        DistinctSuccessors(CompactGraph source) {
+            this.source = source;
+        }
+
+        @Override
+        public int numNodes() {
+            return source.vertexCount();
+        }
+
+        @Override
+        public long numArcs() {
+            long arcs = 0;
+            for (int v = 0; v < source.vertexCount(); v++) arcs += source.distinctOutDegree(v);
+            return arcs;
+        }
+
+        @Override
+        public boolean randomAccess() {
+            return true;
+        }
+
+        @Override
+        public int outdegree(int v) {
+            return source.distinctOutDegree(v);
+        }
+
+        @Override
+        public int[] successorArray(int v) {
+            int[] successors = new int[source.distinctOutDegree(v)];
+            IntIterator it = source.successors(v);
+            int count = 0;
+            while (it.hasNext()) {
+                int t = it.nextInt();
+                if (count == 0 || successors[count - 1] != t) successors[count++] = t;
+            }
+            return successors;
+        }
+
+        @Override
+        public ImmutableGraph copy() {
+            return this;
+        }
+    }
+}
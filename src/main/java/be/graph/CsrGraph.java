@@ -0,0 +1,214 @@
+package be.graph;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Graphe orienté immuable au format CSR (compressed sparse row).
+ * Les successeurs du sommet v sont outTargets[outOffsets[v] .. outOffsets[v+1]) et ses prédécesseurs
+ * inSources[inOffsets[v] .. inOffsets[v+1]), triés par identifiant croissant.
+ * Les arêtes multiples sont conservées (doublons adjacents), comme dans un DirectedMultigraph.
+ * Coût mémoire : 2 int par arête + 2 int par sommet, plus le dictionnaire des libellés.
+ * Les tableaux sont vus comme des IntBuffer : en mémoire (tableaux enveloppés) ou directement
+ * projetés depuis un instantané binaire (voir GraphSnapshot), sans copie.
+ */
+public final class CsrGraph implements CompactGraph {
+    private final VertexDictionary dictionary;
+    private final IntBuffer outOffsets;
+    private final IntBuffer outTargets;
+    private final IntBuffer inOffsets;
+    private final IntBuffer inSources;
+
+    CsrGraph(VertexDictionary dictionary, IntBuffer outOffsets, IntBuffer outTargets, IntBuffer inOffsets, IntBuffer inSources) {
+        this.dictionary = dictionary;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+    }
+
+    // Charge un instantané binaire (projeté en mémoire) ou, à défaut, une liste d'arêtes texte
+    public static CsrGraph load(Path file) throws IOException {
+        if (GraphSnapshot.isSnapshot(file)) {
+            return GraphSnapshot.open(file);
+        }
+        return fromEdgeList(EdgeListLoader.load(file));
+    }
+
+    public static CsrGraph fromEdgeList(EdgeList edges) {
+        return build(new VertexDictionary(edges.labels()), edges.sources(), edges.targets());
+    }
+
+    // Conversion depuis jgrapht : les identifiants suivent l'ordre de vertexSet()
+    public static CsrGraph fromGraph(DirectedMultigraph<String, DefaultEdge> graph) {
+        String[] labels = graph.vertexSet().toArray(new String[0]);
+        VertexDictionary dictionary = new VertexDictionary(labels);
+        int m = graph.edgeSet().size();
+        int[] sources = new int[m];
+        int[] targets = new int[m];
+        int e = 0;
+        for (DefaultEdge edge : graph.edgeSet()) {
+            sources[e] = dictionary.indexOf(graph.getEdgeSource(edge));
+            targets[e] = dictionary.indexOf(graph.getEdgeTarget(edge));
+            e++;
+        }
+        return build(dictionary, sources, targets);
+    }
+
+    static CsrGraph build(VertexDictionary dictionary, int[] sources, int[] targets) {
+        int n = dictionary.size();
+        int[] outOffsets = new int[n + 1];
+        int[] inOffsets = new int[n + 1];
+        int[] outTargets = new int[sources.length];
+        int[] inSources = new int[sources.length];
+        bucket(sources, targets, outOffsets, outTargets);
+        bucket(targets, sources, inOffsets, inSources);
+        return new CsrGraph(dictionary, IntBuffer.wrap(outOffsets), IntBuffer.wrap(outTargets),
+                IntBuffer.wrap(inOffsets), IntBuffer.wrap(inSources));
+    }
+
+    // Tri par paquets (counting sort) sur la clé, puis tri de chaque ligne
+    private static void bucket(int[] keys, int[] values, int[] offsets, int[] out) {
+        int n = offsets.length - 1;
+        for (int key : keys) offsets[key + 1]++;
+        for (int v = 0; v < n; v++) offsets[v + 1] += offsets[v];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < keys.length; e++) {
+            out[cursor[keys[e]]++] = values[e];
+        }
+        IntStream.range(0, n).parallel().forEach(v -> Arrays.sort(out, offsets[v], offsets[v + 1]));
+    }
+
+    @Override
+    public VertexDictionary dictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public int vertexCount() {
+        return outOffsets.limit() - 1;
+    }
+
+    @Override
+    public int edgeCount() {
+        return outTargets.limit();
+    }
+
+    @Override
+    public String label(int v) {
+        return dictionary.label(v);
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return outOffsets.get(v + 1) - outOffsets.get(v);
+    }
+
+    public int inDegree(int v) {
+        return inOffsets.get(v + 1) - inOffsets.get(v);
+    }
+
+    public int outStart(int v) {
+        return outOffsets.get(v);
+    }
+
+    public int outEnd(int v) {
+        return outOffsets.get(v + 1);
+    }
+
+    public int outTarget(int i) {
+        return outTargets.get(i);
+    }
+
+    public int inStart(int v) {
+        return inOffsets.get(v);
+    }
+
+    public int inEnd(int v) {
+        return inOffsets.get(v + 1);
+    }
+
+    public int inSource(int i) {
+        return inSources.get(i);
+    }
+
+    @Override
+    public IntIterator successors(int v) {
+        int end = outOffsets.get(v + 1);
+        return new IntIterator() {
+            private int i = outOffsets.get(v);
+
+            @Override
+            public boolean hasNext() {
+                return i < end;
+            }
+
+            @Override
+            public int nextInt() {
+                return outTargets.get(i++);
+            }
+        };
+    }
+
+    @Override
+    public int distinctOutDegree(int v) {
+        int start = outOffsets.get(v), end = outOffsets.get(v + 1);
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            if (i == start || outTargets.get(i) != outTargets.get(i - 1)) count++;
+        }
+        return count;
+    }
+
+    // Recherche dichotomique dans la ligne triée de u
+    @Override
+    public boolean hasEdge(int u, int v) {
+        int low = outOffsets.get(u), high = outOffsets.get(u + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int t = outTargets.get(mid);
+            if (t < v) low = mid + 1;
+            else if (t > v) high = mid - 1;
+            else return true;
+        }
+        return false;
+    }
+
+    IntBuffer outOffsets() {
+        return outOffsets.duplicate();
+    }
+
+    IntBuffer outTargets() {
+        return outTargets.duplicate();
+    }
+
+    IntBuffer inOffsets() {
+        return inOffsets.duplicate();
+    }
+
+    IntBuffer inSources() {
+        return inSources.duplicate();
+    }
+
+    // Reconstruit le graphe jgrapht (pour les méthodes qui n'ont pas de variante CSR)
+    public DirectedMultigraph<String, DefaultEdge> toGraph() {
+        DirectedMultigraph<String, DefaultEdge> graph = new DirectedMultigraph<>(DefaultEdge.class);
+        for (int v = 0; v < vertexCount(); v++) {
+            graph.addVertex(label(v));
+        }
+        for (int u = 0; u < vertexCount(); u++) {
+            String source = label(u);
+            for (int i = outStart(u); i < outEnd(u); i++) {
+                graph.addEdge(source, label(outTarget(i)));
+            }
+        }
+        return graph;
+    }
+}
@@ -0,0 +1,65 @@
+package be.graph;
+
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+/**
+ * Liste d'arêtes brute produite par {@link EdgeListLoader}.
+ * Les sommets sont numérotés de 0 à n-1 dans l'ordre de première apparition dans le fichier,
+ * les arêtes sont gardées dans l'ordre du fichier (boucles déjà retirées).
+ */
+public final class EdgeList {
+    private final String[] labels;
+    private final int[] sources;
+    private final int[] targets;
+
+    EdgeList(String[] labels, int[] sources, int[] targets) {
+        this.labels = labels;
+        this.sources = sources;
+        this.targets = targets;
+    }
+
+    public int vertexCount() {
+        return labels.length;
+    }
+
+    public int edgeCount() {
+        return sources.length;
+    }
+
+    public String label(int vertex) {
+        return labels[vertex];
+    }
+
+    public int source(int edge) {
+        return sources[edge];
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    String[] labels() {
+        return labels;
+    }
+
+    int[] sources() {
+        return sources;
+    }
+
+    int[] targets() {
+        return targets;
+    }
+
+    // Construit le graphe jgrapht équivalent (mêmes ordres d'insertion que Main.parseGraph)
+    public DirectedMultigraph<String, DefaultEdge> toGraph() {
+        DirectedMultigraph<String, DefaultEdge> graph = new DirectedMultigraph<>(DefaultEdge.class);
+        for (String label : labels) {
+            graph.addVertex(label);
+        }
+        for (int e = 0; e < sources.length; e++) {
+            graph.addEdge(labels[sources[e]], labels[targets[e]]);
+        }
+        return graph;
+    }
+}
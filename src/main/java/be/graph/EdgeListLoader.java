@@ -0,0 +1,382 @@
+package be.graph;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Chargement parallèle d'une liste d'arêtes texte (une arête "src dst" par ligne).
+ * Le fichier est projeté en mémoire (FileChannel.map), découpé en morceaux alignés sur les fins de ligne
+ * puis chaque morceau est analysé par un thread différent, sans regex ni String par jeton :
+ * les identifiants numériques sont lus directement dans les octets, seuls les libellés non numériques
+ * (ex. "CLQ_3_1712345678" produits par GraphUtils) passent par une String.
+ * La numérotation des sommets est ensuite fusionnée séquentiellement, dans l'ordre du fichier,
+ * pour garder exactement l'ordre d'insertion de Main.parseGraph.
+ * <p>
+ * Un fichier ".gz" est lu en flux sans copie décompressée sur disque : le thread appelant décompresse et découpe
+ * en blocs alignés sur les fins de ligne, qu'il passe aux threads d'analyse par une file bornée. La mémoire
+ * en transit reste limitée à quelques blocs, et la décompression se recouvre avec l'analyse.
+ */
+public final class EdgeListLoader {
+
+    /**
+     * STRICT   : sémantique de Main.parseGraph (1 jeton = sommet isolé, 2 jetons = arête, sinon ligne signalée).
+     * LENIENT  : sémantique de GraphUtils.loadGraph (deux premiers jetons, lignes plus courtes ignorées).
+     * Dans les deux cas les lignes vides et les commentaires '#' sont ignorés et les boucles ne sont pas ajoutées.
+     */
+    public enum Syntax { STRICT, LENIENT }
+
+    // Taille visée d'un morceau : assez gros pour amortir le découpage, toujours < 2 Go (limite de map)
+    private static final long TARGET_CHUNK_SIZE = 64L << 20;
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    // Bloc de texte décompressé confié à un thread d'analyse
+    private static final int GZIP_BLOCK_SIZE = 4 << 20;
+    private static final int GZIP_INPUT_BUFFER = 1 << 16;
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private EdgeListLoader() {
+    }
+
+    public static EdgeList load(Path file) throws IOException {
+        return load(file, Syntax.STRICT);
+    }
+
+    public static EdgeList load(Path file, Syntax syntax) throws IOException {
+        if (file.getFileName().toString().endsWith(".gz")) {
+            return loadGzip(file, syntax);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            int nbChunks = bounds.length - 1;
+            Chunk[] chunks = new Chunk[nbChunks];
+            for (int c = 0; c < nbChunks; c++) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, bounds[c], bounds[c + 1] - bounds[c]);
+                chunks[c] = new Chunk(buffer, syntax);
+            }
+            Arrays.stream(chunks).parallel().forEach(Chunk::parse);
+            return merge(chunks);
+        }
+    }
+
+    private static EdgeList loadGzip(Path file, Syntax syntax) throws IOException {
+        int nbParsers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        BlockingQueue<Chunk> pending = new ArrayBlockingQueue<>(2 * nbParsers);
+        Chunk end = new Chunk(null, syntax);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Thread[] parsers = new Thread[nbParsers];
+        for (int t = 0; t < nbParsers; t++) {
+            parsers[t] = new Thread(() -> parseUntilEnd(pending, end, failure), "edge-list-parser-" + t);
+            parsers[t].setDaemon(true);
+            parsers[t].start();
+        }
+
+        // Les morceaux sont listés dans l'ordre du fichier par ce seul thread ; les analyseurs les remplissent
+        // sur place, et join() rend leurs résultats visibles avant la fusion.
+        List<Chunk> chunks = new ArrayList<>();
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), GZIP_INPUT_BUFFER)) {
+            byte[] block = new byte[GZIP_BLOCK_SIZE];
+            int filled = 0;
+            while (true) {
+                int read = in.readNBytes(block, filled, block.length - filled);
+                filled += read;
+                boolean eof = filled < block.length;
+                int cut = filled;
+                if (!eof) {
+                    while (cut > 0 && block[cut - 1] != '\n') cut--;
+                    if (cut == 0) {
+                        // Ligne plus longue qu'un bloc : on agrandit le bloc et on continue à lire
+                        block = Arrays.copyOf(block, 2 * block.length);
+                        continue;
+                    }
+                }
+                if (cut > 0) {
+                    Chunk chunk = new Chunk(ByteBuffer.wrap(block, 0, cut), syntax);
+                    chunks.add(chunk);
+                    put(pending, chunk);
+                }
+                if (eof) break;
+                // La fin de ligne incomplète passe en tête du bloc suivant
+                byte[] next = new byte[GZIP_BLOCK_SIZE];
+                filled -= cut;
+                System.arraycopy(block, cut, next, 0, filled);
+                block = next;
+            }
+        } finally {
+            put(pending, end);
+            for (Thread parser : parsers) {
+                try {
+                    parser.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrompu pendant la lecture de " + file, e);
+                }
+            }
+        }
+        if (failure.get() != null) throw failure.get();
+        return merge(chunks.toArray(new Chunk[0]));
+    }
+
+    // Boucle d'un thread d'analyse ; après une erreur il continue à vider la file pour ne pas bloquer le lecteur
+    private static void parseUntilEnd(BlockingQueue<Chunk> pending, Chunk end, AtomicReference<RuntimeException> failure) {
+        try {
+            while (true) {
+                Chunk chunk = pending.take();
+                if (chunk == end) {
+                    pending.put(end); // réveille les autres analyseurs
+                    return;
+                }
+                if (failure.get() != null) continue;
+                try {
+                    chunk.parse();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void put(BlockingQueue<Chunk> pending, Chunk chunk) throws IOException {
+        try {
+            pending.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrompu pendant la décompression", e);
+        }
+    }
+
+    // Découpe le fichier en morceaux dont chaque borne (sauf la première) suit immédiatement un '\n'
+    private static long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(TARGET_CHUNK_SIZE, size / (4L * parallelism) + 1));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long pos = chunkSize;
+        while (pos < size) {
+            long boundary = nextLineStart(channel, pos, probe);
+            if (boundary >= size) break;
+            bounds.add(boundary);
+            pos = boundary + chunkSize;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, ByteBuffer probe) throws IOException {
+        long pos = from;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, pos);
+            if (read <= 0) return channel.size();
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += read;
+        }
+    }
+
+    // Fusion séquentielle : attribue les identifiants denses dans l'ordre de première apparition
+    private static EdgeList merge(Chunk[] chunks) {
+        int maxNumeric = -1;
+        long recordCount = 0;
+        int edgeCount = 0;
+        for (Chunk chunk : chunks) {
+            maxNumeric = Math.max(maxNumeric, chunk.maxNumeric);
+            recordCount += chunk.size;
+            edgeCount += chunk.edgeCount;
+        }
+
+        // Identifiants numériques denses (cas des jeux SNAP / networkrepository) : table directe au lieu d'un hash
+        boolean direct = maxNumeric >= 0 && maxNumeric < Math.max(1024L, 4L * recordCount);
+        int[] directIds = direct ? new int[maxNumeric + 1] : null;
+        if (direct) Arrays.fill(directIds, -1);
+        Int2IntOpenHashMap numericIds = direct ? null : new Int2IntOpenHashMap();
+        if (!direct) numericIds.defaultReturnValue(-1);
+        Object2IntOpenHashMap<String> textIds = new Object2IntOpenHashMap<>();
+        textIds.defaultReturnValue(-1);
+
+        List<String> labels = new ArrayList<>();
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        int e = 0;
+
+        for (Chunk chunk : chunks) {
+            int[] localToGlobal = new int[chunk.texts.size()];
+            Arrays.fill(localToGlobal, -1);
+            int[] records = chunk.records;
+            for (int r = 0; r < chunk.size; r += 2) {
+                int u = resolve(records[r], chunk, localToGlobal, directIds, numericIds, textIds, labels);
+                if (records[r + 1] == NONE) continue;
+                int v = resolve(records[r + 1], chunk, localToGlobal, directIds, numericIds, textIds, labels);
+                sources[e] = u;
+                targets[e] = v;
+                e++;
+            }
+            chunk.release();
+        }
+        return new EdgeList(labels.toArray(new String[0]), sources, targets);
+    }
+
+    private static int resolve(int key, Chunk chunk, int[] localToGlobal, int[] directIds, Int2IntOpenHashMap numericIds,
+                               Object2IntOpenHashMap<String> textIds, List<String> labels) {
+        if (key >= 0) {
+            int id = directIds != null ? directIds[key] : numericIds.get(key);
+            if (id < 0) {
+                id = labels.size();
+                labels.add(Integer.toString(key));
+                if (directIds != null) directIds[key] = id;
+                else numericIds.put(key, id);
+            }
+            return id;
+        }
+        int local = -key - 1;
+        int id = localToGlobal[local];
+        if (id < 0) {
+            String label = chunk.texts.get(local);
+            id = textIds.getInt(label);
+            if (id < 0) {
+                id = labels.size();
+                labels.add(label);
+                textIds.put(label, id);
+            }
+            localToGlobal[local] = id;
+        }
+        return id;
+    }
+
+    /**
+     * Un morceau du fichier et le résultat de son analyse : une suite de couples (u, v) où
+     * u, v >= 0 sont des identifiants numériques lus tels quels, u, v < 0 des indices dans {@code texts}
+     * et v == NONE marque une ligne qui ne déclare qu'un sommet (sommet isolé ou boucle ignorée).
+     */
+    private static final class Chunk {
+        private ByteBuffer buffer;
+        private final Syntax syntax;
+        private int[] records = new int[1024];
+        private int size;
+        private int edgeCount;
+        private int maxNumeric = -1;
+        private final List<String> texts = new ArrayList<>();
+        private final Object2IntOpenHashMap<String> textIndex = new Object2IntOpenHashMap<>();
+
+        Chunk(ByteBuffer buffer, Syntax syntax) {
+            this.buffer = buffer;
+            this.syntax = syntax;
+            textIndex.defaultReturnValue(-1);
+        }
+
+        void parse() {
+            ByteBuffer buf = buffer;
+            int end = buf.limit();
+            int pos = 0;
+            int[] starts = new int[3];
+            int[] ends = new int[3];
+            while (pos < end) {
+                int eol = pos;
+                while (eol < end && buf.get(eol) != '\n') eol++;
+                parseLine(buf, pos, eol, starts, ends);
+                pos = eol + 1;
+            }
+            buffer = null; // le texte n'est plus nécessaire, seuls les enregistrements sont fusionnés
+        }
+
+        private void parseLine(ByteBuffer buf, int from, int to, int[] starts, int[] ends) {
+            int nbTokens = 0;
+            int i = from;
+            while (i < to) {
+                while (i < to && isBlank(buf.get(i))) i++;
+                if (i >= to) break;
+                if (nbTokens == 0 && buf.get(i) == '#') return; // commentaire
+                int start = i;
+                while (i < to && !isBlank(buf.get(i))) i++;
+                if (nbTokens == 3) break;
+                starts[nbTokens] = start;
+                ends[nbTokens] = i;
+                nbTokens++;
+            }
+            if (nbTokens == 0) return; // ligne vide
+
+            if (syntax == Syntax.STRICT && nbTokens > 2) {
+                System.err.println("Ligne non valide : " + decode(buf, from, to).trim());
+                return;
+            }
+            if (syntax == Syntax.LENIENT && nbTokens < 2) return;
+
+            int u = key(buf, starts[0], ends[0]);
+            int v = nbTokens == 1 ? NONE : key(buf, starts[1], ends[1]);
+            if (v == u) v = NONE; // boucle : le sommet est déclaré mais l'arête n'est pas ajoutée
+            if (v != NONE) edgeCount++;
+            append(u, v);
+        }
+
+        private int key(ByteBuffer buf, int from, int to) {
+            int value = numeric(buf, from, to);
+            if (value >= 0) {
+                if (value > maxNumeric) maxNumeric = value;
+                return value;
+            }
+            String label = decode(buf, from, to);
+            int local = textIndex.getInt(label);
+            if (local < 0) {
+                local = texts.size();
+                texts.add(label);
+                textIndex.put(label, local);
+            }
+            return -local - 1;
+        }
+
+        // Entier décimal canonique (sans zéro de tête) tenant dans un int, sinon -1
+        private static int numeric(ByteBuffer buf, int from, int to) {
+            int len = to - from;
+            if (len > 10 || (len > 1 && buf.get(from) == '0')) return -1;
+            long value = 0;
+            for (int i = from; i < to; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9) return -1;
+                value = value * 10 + d;
+            }
+            return value <= Integer.MAX_VALUE ? (int) value : -1;
+        }
+
+        private static String decode(ByteBuffer buf, int from, int to) {
+            byte[] bytes = new byte[to - from];
+            buf.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == 0x0B || b == '\f';
+        }
+
+        private void append(int u, int v) {
+            if (size + 2 > records.length) {
+                records = Arrays.copyOf(records, records.length * 2);
+            }
+            records[size++] = u;
+            records[size++] = v;
+        }
+
+        void release() {
+            records = null;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package be.graph;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Instantané binaire versionné d'un {@link CsrGraph} (extension conseillée : .csr).
+ * <p>
+ * Format (little-endian), version 1 :
+ * <pre>
+ *   en-tête, 64 octets : magic "CSRG" | version (int) | n (int) | m (int) | taille des libellés (long)
+ *                        | CRC32C des sections (long) | réservé (32 octets à 0)
+ *   sections, chacune complétée à un multiple de 8 octets :
+ *     labelOffsets int[n+1] | labelBytes byte[] (UTF-8)
+ *     outOffsets int[n+1] | outTargets int[m] | inOffsets int[n+1] | inSources int[m]
+ * </pre>
+ * À l'ouverture chaque section est projetée en mémoire (FileChannel.map) et utilisée telle quelle par le
+ * CsrGraph : aucune copie ni analyse, les pages sont lues par l'OS au premier accès.
+ * Le format texte (liste d'arêtes) reste disponible en import (EdgeListLoader) et en export ({@link #exportText}).
+ */
+public final class GraphSnapshot {
+    static final int MAGIC = 0x47525343; // "CSRG" lu en little-endian
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    private static final int IO_BUFFER_SIZE = 1 << 20;
+
+    private GraphSnapshot() {
+    }
+
+    public static void save(CsrGraph graph, Path file) throws IOException {
+        int n = graph.vertexCount();
+        int m = graph.edgeCount();
+
+        int[] labelOffsets = new int[n + 1];
+        byte[] labelBytes = graph.dictionary().encode(labelOffsets);
+
+        // Écriture dans un fichier temporaire puis renommage : un instantané encore projeté par un autre
+        // CsrGraph n'est jamais tronqué sous ses pieds, et un fichier à moitié écrit n'est jamais visible.
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32C crc = new CRC32C();
+            channel.position(HEADER_SIZE);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            writeInts(channel, IntBuffer.wrap(labelOffsets), buffer, crc);
+            writeBytes(channel, ByteBuffer.wrap(labelBytes), crc);
+            writeInts(channel, graph.outOffsets(), buffer, crc);
+            writeInts(channel, graph.outTargets(), buffer, crc);
+            writeInts(channel, graph.inOffsets(), buffer, crc);
+            writeInts(channel, graph.inSources(), buffer, crc);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m)
+                    .putLong(labelBytes.length).putLong(crc.getValue());
+            header.clear();
+            channel.position(0);
+            writeFully(channel, header);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static CsrGraph open(Path file) throws IOException {
+        return open(file, false);
+    }
+
+    /**
+     * Ouvre un instantané. Avec {@code verifyChecksum}, toutes les sections sont relues une fois pour
+     * contrôler le CRC32C (à faire après une copie ou un transfert du fichier).
+     */
+    public static CsrGraph open(Path file, boolean verifyChecksum) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " n'est pas un instantané de graphe");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Version d'instantané non supportée : " + version + " (attendu " + VERSION + ")");
+            }
+            int n = header.getInt();
+            int m = header.getInt();
+            long labelSize = header.getLong();
+            long checksum = header.getLong();
+
+            long position = HEADER_SIZE;
+            IntBuffer labelOffsets = mapInts(channel, position, n + 1);
+            position += padded(4L * (n + 1));
+            ByteBuffer labelBytes = channel.map(FileChannel.MapMode.READ_ONLY, position, labelSize);
+            position += padded(labelSize);
+            IntBuffer outOffsets = mapInts(channel, position, n + 1);
+            position += padded(4L * (n + 1));
+            IntBuffer outTargets = mapInts(channel, position, m);
+            position += padded(4L * m);
+            IntBuffer inOffsets = mapInts(channel, position, n + 1);
+            position += padded(4L * (n + 1));
+            IntBuffer inSources = mapInts(channel, position, m);
+            position += padded(4L * m);
+
+            if (channel.size() != position) {
+                throw new IOException("Instantané tronqué ou corrompu : " + channel.size() + " octets, attendu " + position);
+            }
+            if (verifyChecksum && checksum(channel, HEADER_SIZE, position) != checksum) {
+                throw new IOException("Somme de contrôle invalide pour " + file);
+            }
+            return new CsrGraph(new VertexDictionary(labelOffsets, labelBytes), outOffsets, outTargets, inOffsets, inSources);
+        }
+    }
+
+    // Vrai si le fichier commence par l'en-tête d'un instantané binaire
+    public static boolean isSnapshot(Path file) throws IOException {
+        if (Files.size(file) < HEADER_SIZE) return false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, magic, 0);
+            return magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Export texte au format de GraphUtils.saveGraph : une arête "src dst" par ligne puis les sommets isolés.
+     */
+    public static void exportText(CsrGraph graph, Path file) throws IOException {
+        try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(file))) {
+            for (int u = 0; u < graph.vertexCount(); u++) {
+                String source = graph.label(u);
+                for (int i = graph.outStart(u); i < graph.outEnd(u); i++) {
+                    pw.println(source + " " + graph.label(graph.outTarget(i)));
+                }
+            }
+            for (int v = 0; v < graph.vertexCount(); v++) {
+                if (graph.inDegree(v) == 0 && graph.outDegree(v) == 0) {
+                    pw.println(graph.label(v));
+                }
+            }
+        }
+    }
+
+    private static long padded(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asIntBuffer();
+    }
+
+    private static void writeInts(FileChannel channel, IntBuffer ints, ByteBuffer buffer, CRC32C crc) throws IOException {
+        long written = 0;
+        IntBuffer view = buffer.clear().asIntBuffer();
+        while (ints.hasRemaining()) {
+            int count = Math.min(ints.remaining(), view.capacity());
+            view.clear();
+            view.put(ints.slice(ints.position(), count));
+            ints.position(ints.position() + count);
+            buffer.clear().limit(4 * count);
+            crc.update(buffer.duplicate());
+            written += writeFully(channel, buffer);
+        }
+        pad(channel, written, crc);
+    }
+
+    private static void writeBytes(FileChannel channel, ByteBuffer bytes, CRC32C crc) throws IOException {
+        crc.update(bytes.duplicate());
+        pad(channel, writeFully(channel, bytes), crc);
+    }
+
+    private static void pad(FileChannel channel, long written, CRC32C crc) throws IOException {
+        int padding = (int) (padded(written) - written);
+        if (padding == 0) return;
+        ByteBuffer zeros = ByteBuffer.allocate(padding);
+        crc.update(zeros.duplicate());
+        writeFully(channel, zeros);
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, pos);
+            if (read < 0) throw new IOException("Fin de fichier inattendue");
+            pos += read;
+        }
+    }
+
+    private static long checksum(FileChannel channel, long from, long to) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (long pos = from; pos < to; pos += Integer.MAX_VALUE) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(Integer.MAX_VALUE, to - pos)));
+        }
+        return crc.getValue();
+    }
+}
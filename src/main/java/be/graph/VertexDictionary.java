@@ -0,0 +1,234 @@
+package be.graph;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Correspondance libellé de sommet (String) <-> identifiant dense (0..n-1).
+ * L'index inverse (libellé -> id) n'est construit qu'à la première recherche.
+ * Lorsqu'il provient d'un instantané binaire, les libellés restent encodés (UTF-8) dans le fichier projeté
+ * et ne sont décodés qu'à la demande.
+ * Un dictionnaire rattaché à une {@link VertexFamily} connaît en plus l'identifiant partagé de chaque sommet
+ * (croissant avec l'identifiant local) : les correspondances entre graphes de la famille se font sans hachage.
+ * S'il a été renuméroté pour la famille, il garde aussi la position de chaque sommet dans le graphe d'origine
+ * ({@link #loadRank}) : les départages à score égal suivent alors toujours l'ordre de chargement.
+ */
+public final class VertexDictionary {
+    private static final int MAGIC = 0x43494456; // "VDIC" lu en little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private final String[] labels;
+    // Libellés encodés : octets du libellé i = labelBytes[labelOffsets[i] .. labelOffsets[i+1])
+    private final IntBuffer labelOffsets;
+    private final ByteBuffer labelBytes;
+    // Famille partagée (null si le dictionnaire est autonome) et identifiant dans la famille de chaque sommet
+    private final VertexFamily family;
+    private final int[] familyIds;
+    // Position de chaque sommet avant renumérotation par VertexFamily.bind (null : identifiant local)
+    private final int[] loadOrder;
+    private volatile Object2IntOpenHashMap<String> index;
+    private volatile int[] byFamilyId;
+    private volatile Long fingerprint;
+
+    public VertexDictionary(String[] labels) {
+        this(labels, null, null, null, null, null);
+    }
+
+    VertexDictionary(IntBuffer labelOffsets, ByteBuffer labelBytes) {
+        this(new String[labelOffsets.limit() - 1], labelOffsets, labelBytes, null, null, null);
+    }
+
+    private VertexDictionary(String[] labels, IntBuffer labelOffsets, ByteBuffer labelBytes,
+                             VertexFamily family, int[] familyIds, int[] loadOrder) {
+        this.labels = labels;
+        this.labelOffsets = labelOffsets;
+        this.labelBytes = labelBytes;
+        this.family = family;
+        this.familyIds = familyIds;
+        this.loadOrder = loadOrder;
+    }
+
+    // Même dictionnaire (libellés partagés) rattaché à une famille ; familyIds doit être croissant
+    VertexDictionary withFamily(VertexFamily family, int[] familyIds) {
+        return new VertexDictionary(labels, labelOffsets, labelBytes, family, familyIds, loadOrder);
+    }
+
+    // Idem après renumérotation : loadOrder[id] est la position du sommet id dans le graphe d'origine
+    VertexDictionary withFamily(VertexFamily family, int[] familyIds, int[] loadOrder) {
+        return new VertexDictionary(labels, labelOffsets, labelBytes, family, familyIds, loadOrder);
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    public String label(int id) {
+        String label = labels[id];
+        if (label == null) {
+            // Décodage paresseux ; une course entre threads ne produit que deux String égales
+            label = decode(id);
+            labels[id] = label;
+        }
+        return label;
+    }
+
+    // Renvoie l'identifiant du libellé, ou -1 s'il est absent
+    public int indexOf(String label) {
+        return index().getInt(label);
+    }
+
+    public VertexFamily family() {
+        return family;
+    }
+
+    // Identifiant partagé du sommet id dans sa famille (le dictionnaire doit être rattaché à une famille)
+    public int familyId(int id) {
+        return familyIds[id];
+    }
+
+    /**
+     * Position du sommet dans l'ordre de chargement du graphe (ordre de première apparition dans la liste d'arêtes,
+     * ou de vertexSet()) : l'identifiant lui-même, sauf pour un graphe renuméroté par {@link VertexFamily#bind}.
+     * Sert de clé de départage à score égal, pour que les classements ne dépendent pas de la numérotation.
+     * Un instantané sauvé depuis un graphe renuméroté ne la conserve pas : il est chargé dans l'ordre de la famille.
+     */
+    public int loadRank(int id) {
+        return loadOrder == null ? id : loadOrder[id];
+    }
+
+    // Vrai si les deux dictionnaires partagent les mêmes identifiants de famille
+    public boolean sameFamily(VertexDictionary other) {
+        return family != null && family == other.family;
+    }
+
+    /**
+     * Pour chaque sommet de ce dictionnaire, son identifiant dans {@code other} (-1 s'il n'y est pas).
+     * Entre deux dictionnaires de la même famille, la correspondance passe par les identifiants partagés.
+     */
+    public int[] mapTo(VertexDictionary other) {
+        int[] mapping = new int[labels.length];
+        if (other == this) {
+            for (int id = 0; id < labels.length; id++) mapping[id] = id;
+        } else if (sameFamily(other)) {
+            int[] local = other.byFamilyId();
+            for (int id = 0; id < labels.length; id++) {
+                int f = familyIds[id];
+                mapping[id] = f < local.length ? local[f] : -1;
+            }
+        } else {
+            for (int id = 0; id < labels.length; id++) mapping[id] = other.indexOf(label(id));
+        }
+        return mapping;
+    }
+
+    /**
+     * Empreinte 64 bits des libellés dans l'ordre des identifiants : deux dictionnaires de même empreinte
+     * numérotent (avec une probabilité écrasante) les mêmes sommets de la même façon.
+     */
+    public long fingerprint() {
+        Long result = fingerprint;
+        if (result == null) {
+            Hasher hasher = Hashing.murmur3_128().newHasher();
+            hasher.putInt(size());
+            for (int id = 0; id < size(); id++) {
+                String label = label(id);
+                hasher.putInt(label.length()).putString(label, StandardCharsets.UTF_8);
+            }
+            result = hasher.hash().asLong();
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * Sauve le dictionnaire seul : en-tête (magic "VDIC", version, n, taille des octets)
+     * puis offsets int[n+1] et libellés UTF-8 concaténés, en little-endian.
+     */
+    public void save(Path file) throws IOException {
+        int[] offsets = new int[size() + 1];
+        byte[] bytes = encode(offsets);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * offsets.length + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size()).putInt(bytes.length);
+        buffer.asIntBuffer().put(offsets);
+        buffer.position(HEADER_SIZE + 4 * offsets.length);
+        buffer.put(bytes);
+        Files.write(file, buffer.array());
+    }
+
+    // Ouvre un dictionnaire sauvé par save() ; les libellés sont projetés en mémoire et décodés à la demande
+    public static VertexDictionary open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException(file + " n'est pas un dictionnaire de sommets (version " + VERSION + ")");
+            }
+            int n = header.getInt();
+            int byteSize = header.getInt();
+            IntBuffer offsets = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, 4L * (n + 1))
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + 4L * (n + 1), byteSize);
+            return new VertexDictionary(offsets, bytes);
+        }
+    }
+
+    // Encode les libellés en UTF-8 : remplit offsets (taille n+1) et renvoie les octets concaténés
+    byte[] encode(int[] offsets) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (int v = 0; v < size(); v++) {
+            bytes.writeBytes(label(v).getBytes(StandardCharsets.UTF_8));
+            offsets[v + 1] = bytes.size();
+        }
+        return bytes.toByteArray();
+    }
+
+    private String decode(int id) {
+        int from = labelOffsets.get(id);
+        byte[] bytes = new byte[labelOffsets.get(id + 1) - from];
+        labelBytes.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Identifiant local indexé par identifiant de famille (-1 si le sommet n'est pas dans ce graphe)
+    private int[] byFamilyId() {
+        int[] result = byFamilyId;
+        if (result == null) {
+            result = new int[familyIds.length == 0 ? 0 : familyIds[familyIds.length - 1] + 1];
+            Arrays.fill(result, -1);
+            for (int id = 0; id < familyIds.length; id++) result[familyIds[id]] = id;
+            byFamilyId = result;
+        }
+        return result;
+    }
+
+    private Object2IntOpenHashMap<String> index() {
+        Object2IntOpenHashMap<String> result = index;
+        if (result == null) {
+            synchronized (this) {
+                result = index;
+                if (result == null) {
+                    result = new Object2IntOpenHashMap<>(labels.length);
+                    result.defaultReturnValue(-1);
+                    for (int id = 0; id < labels.length; id++) {
+                        result.put(label(id), id);
+                    }
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+}
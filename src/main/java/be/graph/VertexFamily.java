@@ -0,0 +1,202 @@
+package be.graph;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Dictionnaire de sommets partagé par une famille d'instantanés (graphe de référence et ses variantes perturbées).
+ * Chaque libellé reçoit une fois pour toutes un identifiant dense ; les sommets nouveaux (addDenseSubgraph,
+ * cloneNode...) sont ajoutés à la fin, les identifiants existants ne changent jamais.
+ * <p>
+ * Les graphes de la famille ({@link #graph}, {@link #bind}, {@link #load}) numérotent leurs sommets par
+ * identifiant de famille croissant : leurs successeurs triés le sont aussi en identifiants de famille,
+ * et le recouvrement de sommets ou d'arêtes se calcule sur des entiers.
+ * <p>
+ * Fichier (little-endian), version 1 : en-tête de 16 octets (magic "VFAM", version, nombre de libellés, réservé)
+ * puis, pour chaque libellé, sa longueur (int) et ses octets UTF-8. {@link #save()} n'écrit que les libellés
+ * ajoutés depuis la dernière sauvegarde, puis met à jour le compteur de l'en-tête.
+ */
+public final class VertexFamily {
+    private static final int MAGIC = 0x4D414656; // "VFAM" lu en little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private final Path file;
+    private String[] labels;
+    private int size;
+    private final Object2IntOpenHashMap<String> index;
+    // Libellés déjà écrits dans le fichier et position de fin du dernier enregistrement valide
+    private int persisted;
+    private long persistedBytes;
+
+    private VertexFamily(Path file, String[] labels, int size, long persistedBytes) {
+        this.file = file;
+        this.labels = labels;
+        this.size = size;
+        this.persisted = size;
+        this.persistedBytes = persistedBytes;
+        this.index = new Object2IntOpenHashMap<>(Math.max(16, size));
+        this.index.defaultReturnValue(-1);
+        for (int id = 0; id < size; id++) {
+            index.put(labels[id], id);
+        }
+    }
+
+    // Famille en mémoire seulement (save() n'est pas disponible)
+    public static VertexFamily create() {
+        return new VertexFamily(null, new String[16], 0, HEADER_SIZE);
+    }
+
+    // Ouvre le dictionnaire d'une famille, ou en démarre un nouveau si le fichier n'existe pas encore
+    public static VertexFamily open(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return new VertexFamily(file, new String[16], 0, HEADER_SIZE);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException(file + " n'est pas un dictionnaire de famille (version " + VERSION + ")");
+            }
+            int n = buffer.getInt();
+            buffer.position(HEADER_SIZE);
+            String[] labels = new String[Math.max(16, n)];
+            for (int id = 0; id < n; id++) {
+                if (buffer.remaining() < 4) throw new IOException("Dictionnaire de famille tronqué : " + file);
+                byte[] bytes = new byte[buffer.getInt()];
+                if (buffer.remaining() < bytes.length) throw new IOException("Dictionnaire de famille tronqué : " + file);
+                buffer.get(bytes);
+                labels[id] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            // Les octets au-delà du dernier libellé compté (ajout interrompu) seront écrasés au prochain save()
+            return new VertexFamily(file, labels, n, buffer.position());
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized String label(int id) {
+        if (id >= size) throw new IndexOutOfBoundsException(id);
+        return labels[id];
+    }
+
+    // Renvoie l'identifiant du libellé, ou -1 s'il n'appartient pas à la famille
+    public synchronized int indexOf(String label) {
+        return index.getInt(label);
+    }
+
+    // Identifiant du libellé, ajouté en fin de dictionnaire s'il est nouveau
+    public synchronized int intern(String label) {
+        int id = index.getInt(label);
+        if (id < 0) {
+            id = size;
+            if (size == labels.length) labels = Arrays.copyOf(labels, 2 * size);
+            labels[size++] = label;
+            index.put(label, id);
+        }
+        return id;
+    }
+
+    private synchronized int[] internAll(VertexDictionary dictionary) {
+        int[] ids = new int[dictionary.size()];
+        for (int v = 0; v < ids.length; v++) ids[v] = intern(dictionary.label(v));
+        return ids;
+    }
+
+    /**
+     * Ajoute au fichier les libellés apparus depuis la dernière sauvegarde. Les octets sont écrits et synchronisés
+     * avant le compteur de l'en-tête : une interruption ne laisse jamais un libellé compté mais incomplet.
+     */
+    public synchronized void save() throws IOException {
+        if (file == null) throw new IllegalStateException("Famille sans fichier associé");
+        if (persisted == size && Files.exists(file)) return;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long position = persistedBytes;
+            for (int id = persisted; id < size; id++) {
+                byte[] bytes = labels[id].getBytes(StandardCharsets.UTF_8);
+                ByteBuffer record = ByteBuffer.allocate(4 + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+                record.putInt(bytes.length).put(bytes).flip();
+                while (record.hasRemaining()) position += channel.write(record, position);
+            }
+            channel.truncate(position);
+            channel.force(false);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(0).flip();
+            while (header.hasRemaining()) channel.write(header, HEADER_SIZE - header.remaining());
+            channel.force(false);
+            persisted = size;
+            persistedBytes = position;
+        }
+    }
+
+    // Graphe de la famille construit depuis jgrapht ; les sommets inconnus sont ajoutés dans l'ordre de vertexSet()
+    public CsrGraph graph(DirectedMultigraph<String, DefaultEdge> graph) {
+        return bind(CsrGraph.fromGraph(graph));
+    }
+
+    // Instantané binaire ou liste d'arêtes texte, rattaché à la famille
+    public CsrGraph load(Path file) throws IOException {
+        return bind(CsrGraph.load(file));
+    }
+
+    /**
+     * Rattache un graphe à la famille. Si ses identifiants suivent déjà l'ordre de la famille (cas d'un instantané
+     * sauvé depuis un graphe de la famille), les tableaux sont réutilisés tels quels ; sinon le graphe est renuméroté
+     * et son dictionnaire garde l'ordre de chargement d'origine ({@link VertexDictionary#loadRank}) pour les
+     * départages à score égal.
+     */
+    public CsrGraph bind(CsrGraph graph) {
+        VertexDictionary dictionary = graph.dictionary();
+        if (dictionary.family() == this) return graph;
+        int[] familyIds = internAll(dictionary);
+        int n = familyIds.length;
+
+        boolean ordered = true;
+        for (int v = 1; v < n && ordered; v++) ordered = familyIds[v - 1] < familyIds[v];
+        if (ordered) {
+            return new CsrGraph(dictionary.withFamily(this, familyIds), graph.outOffsets(), graph.outTargets(),
+                    graph.inOffsets(), graph.inSources());
+        }
+
+        // Renumérotation : nouvel identifiant local = rang de l'identifiant de famille
+        long[] keys = new long[n];
+        for (int v = 0; v < n; v++) keys[v] = ((long) familyIds[v] << 32) | v;
+        Arrays.parallelSort(keys);
+        int[] newId = new int[n];
+        String[] labels = new String[n];
+        int[] sortedFamilyIds = new int[n];
+        int[] loadOrder = new int[n];
+        for (int rank = 0; rank < n; rank++) {
+            int v = (int) keys[rank];
+            newId[v] = rank;
+            labels[rank] = dictionary.label(v);
+            sortedFamilyIds[rank] = familyIds[v];
+            loadOrder[rank] = dictionary.loadRank(v);
+        }
+        int m = graph.edgeCount();
+        int[] sources = new int[m];
+        int[] targets = new int[m];
+        int e = 0;
+        for (int u = 0; u < n; u++) {
+            for (int i = graph.outStart(u); i < graph.outEnd(u); i++) {
+                sources[e] = newId[u];
+                targets[e] = newId[graph.outTarget(i)];
+                e++;
+            }
+        }
+        return CsrGraph.build(new VertexDictionary(labels).withFamily(this, sortedFamilyIds, loadOrder), sources, targets);
+    }
+}
@@ -0,0 +1,69 @@
+package be.pagerank;
+
+import be.graph.CompactGraph;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+
+import java.util.Arrays;
+
+/**
+ * PageRank sur un {@link CompactGraph} (CSR ou WebGraph compressé).
+ * Même itération que org.jgrapht.alg.scoring.PageRank (non pondéré) : téléportation uniforme,
+ * masse des sommets sans successeur redistribuée uniformément, arrêt quand la variation maximale
+ * passe sous la tolérance ou après maxIterations. La contribution est poussée le long des successeurs,
+ * ce qui évite d'avoir besoin des prédécesseurs (non disponibles dans un BVGraph).
+ * Les scores sont renvoyés dans un tableau aligné sur les identifiants du graphe.
+ */
+public final class CompactPageRank {
+    public static final int MAX_ITERATIONS_DEFAULT = 100;
+    public static final double TOLERANCE_DEFAULT = 0.0001;
+
+    private CompactPageRank() {
+    }
+
+    public static double[] scores(CompactGraph graph, double dampingFactor) {
+        return scores(graph, dampingFactor, MAX_ITERATIONS_DEFAULT, TOLERANCE_DEFAULT);
+    }
+
+    public static double[] scores(CompactGraph graph, double dampingFactor, int maxIterations, double tolerance) {
+        int n = graph.vertexCount();
+        double[] curScore = new double[n];
+        double[] nextScore = new double[n];
+        int[] outDegree = new int[n];
+        if (n == 0) return curScore;
+        for (int v = 0; v < n; v++) {
+            outDegree[v] = graph.outDegree(v);
+        }
+        Arrays.fill(curScore, 1.0d / n);
+
+        double maxChange = tolerance;
+        int iterations = maxIterations;
+        while (iterations > 0 && maxChange >= tolerance) {
+            // Téléportation + masse des sommets sans successeur
+            double r = 0d;
+            for (int v = 0; v < n; v++) {
+                r += outDegree[v] > 0 ? (1d - dampingFactor) * curScore[v] : curScore[v];
+            }
+            r /= n;
+            Arrays.fill(nextScore, r);
+
+            for (int u = 0; u < n; u++) {
+                if (outDegree[u] == 0) continue;
+                double share = dampingFactor * curScore[u] / outDegree[u];
+                IntIterator successors = graph.successors(u);
+                while (successors.hasNext()) {
+                    nextScore[successors.nextInt()] += share;
+                }
+            }
+
+            maxChange = 0d;
+            for (int v = 0; v < n; v++) {
+                maxChange = Math.max(maxChange, Math.abs(nextScore[v] - curScore[v]));
+            }
+            double[] tmp = curScore;
+            curScore = nextScore;
+            nextScore = tmp;
+            iterations--;
+        }
+        return curScore;
+    }
+}
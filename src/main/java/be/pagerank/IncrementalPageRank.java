@@ -0,0 +1,126 @@
+package be.pagerank;
+
+import be.graph.CompactGraph;
+import be.graph.CsrGraph;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+
+/**
+ * PageRank d'un graphe perturbé à partir des scores du graphe de référence.
+ * <p>
+ * Une variante (arêtes supprimées, recâblées, inversées, sommets retirés...) ne diffère de la référence que par
+ * une petite fraction d'arêtes : ses scores sont proches de ceux de la référence. Deux modes :
+ * <ul>
+ *   <li>{@link #warmStart} + {@link ParallelPageRank#scores(CsrGraph, double[])} : itération de puissance classique
+ *   qui démarre du vecteur de référence au lieu du vecteur uniforme ;</li>
+ *   <li>{@link #update} : propagation du seul résidu (style "push", Gauss-Southwell) ; seuls les sommets dont le
+ *   résidu dépasse le seuil, c'est-à-dire ceux touchés par le delta d'arêtes et leur voisinage, sont traités.
+ *   La propagation est séquentielle : si le delta touche plus de {@link #PUSH_FRACTION} des sommets, l'itération
+ *   parallèle démarrée à chaud est plus rapide et c'est elle qui est utilisée.</li>
+ * </ul>
+ * Le résidu du sommet v est (M x)_v - x_v, où M est l'opérateur d'une itération de jgrapht (téléportation et
+ * sommets sans successeur compris) : c'est exactement la variation qu'appliquerait l'itération suivante.
+ * <p>
+ * La tolérance de {@link #update} est rapportée à la taille du graphe : un sommet est poussé dès que son résidu
+ * atteint tolerance / n. Les scores valent environ 1/n ; avec le seuil absolu de jgrapht (1e-4), aucun résidu ne
+ * l'atteindrait au-delà de 10^4 sommets et le vecteur de départ serait rendu tel quel. Avec ce seuil, la somme
+ * des résidus restants est inférieure à la tolérance.
+ */
+public final class IncrementalPageRank {
+    // Au-delà de cette fraction de sommets à corriger, update() bascule sur l'itération parallèle
+    public static final double PUSH_FRACTION = 0.01;
+
+    private IncrementalPageRank() {
+    }
+
+    /**
+     * Vecteur initial pour {@code graph} à partir des scores de la référence (alignés sur ses identifiants) :
+     * un sommet commun reprend son score, un sommet nouveau reçoit 1/n, puis le vecteur est normalisé à 1.
+     */
+    public static double[] warmStart(CompactGraph graph, CompactGraph reference, double[] referenceScores) {
+        int n = graph.vertexCount();
+        int[] toReference = graph.dictionary().mapTo(reference.dictionary());
+        double[] initial = new double[n];
+        for (int v = 0; v < n; v++) {
+            initial[v] = toReference[v] >= 0 ? referenceScores[toReference[v]] : 1.0d / n;
+        }
+        return normalized(initial);
+    }
+
+    public static double[] update(CsrGraph graph, double[] initial, double dampingFactor) {
+        return update(graph, initial, dampingFactor, CompactPageRank.MAX_ITERATIONS_DEFAULT, CompactPageRank.TOLERANCE_DEFAULT);
+    }
+
+    /**
+     * Propagation du résidu à partir de {@code initial} (non modifié). Chaque passe recalcule le résidu exact en
+     * parallèle (une itération de {@link ParallelPageRank}), puis pousse les résidus d'au moins tolerance / n le
+     * long des arêtes sortantes jusqu'à épuisement de la file. On s'arrête quand une passe ne trouve plus aucun
+     * résidu au-dessus de ce seuil, ou après maxPasses passes. Le résultat est normalisé à 1.
+     */
+    public static double[] update(CsrGraph graph, double[] initial, double dampingFactor, int maxPasses, double tolerance) {
+        int n = graph.vertexCount();
+        if (initial.length != n) {
+            throw new IllegalArgumentException(initial.length + " scores initiaux pour " + n + " sommets");
+        }
+        double[] x = initial.clone();
+        if (n == 0) return x;
+        double threshold = tolerance / n;
+        ParallelPageRank oneIteration = new ParallelPageRank(dampingFactor, 1, threshold);
+        double[] residual = new double[n];
+        boolean[] queued = new boolean[n];
+        IntArrayFIFOQueue queue = new IntArrayFIFOQueue();
+
+        for (int pass = 0; pass < maxPasses; pass++) {
+            // Résidu exact : r = M x - x
+            double[] mx = oneIteration.iterate(graph, x.clone());
+            for (int v = 0; v < n; v++) {
+                residual[v] = mx[v] - x[v];
+                if (Math.abs(residual[v]) >= threshold) {
+                    queue.enqueue(v);
+                    queued[v] = true;
+                }
+            }
+            if (queue.isEmpty()) break;
+            if (queue.size() > PUSH_FRACTION * n) {
+                return new ParallelPageRank(dampingFactor, maxPasses, threshold).scores(graph, normalized(x));
+            }
+
+            // La part uniforme du résidu (téléportation, sommets sans successeur) touche tous les sommets :
+            // elle est cumulée dans un scalaire et ne sera répartie qu'au recalcul de la passe suivante.
+            double uniform = 0d;
+            while (!queue.isEmpty()) {
+                int u = queue.dequeueInt();
+                queued[u] = false;
+                double rho = residual[u] + uniform;
+                x[u] += rho;
+                residual[u] = -uniform;
+                int degree = graph.outDegree(u);
+                if (degree > 0) {
+                    double share = dampingFactor * rho / degree;
+                    for (int i = graph.outStart(u), end = graph.outEnd(u); i < end; i++) {
+                        int w = graph.outTarget(i);
+                        residual[w] += share;
+                        if (!queued[w] && Math.abs(residual[w] + uniform) >= threshold) {
+                            queue.enqueue(w);
+                            queued[w] = true;
+                        }
+                    }
+                    uniform += (1d - dampingFactor) * rho / n;
+                } else {
+                    uniform += rho / n;
+                }
+            }
+        }
+        // M conserve la somme mais pas le push (la part uniforme du résidu reste en suspens) : on renormalise à 1,
+        // le point fixe de M n'étant défini qu'à un facteur près.
+        return normalized(x);
+    }
+
+    private static double[] normalized(double[] x) {
+        double sum = 0d;
+        for (double value : x) sum += value;
+        if (sum > 0d) {
+            for (int v = 0; v < x.length; v++) x[v] /= sum;
+        }
+        return x;
+    }
+}
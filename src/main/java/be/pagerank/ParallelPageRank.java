@@ -0,0 +1,169 @@
+package be.pagerank;
+
+import be.graph.CsrGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * PageRank multi-thread sur un {@link CsrGraph}, pour le précalcul de GeneratePagerank.
+ * Même itération et même critère d'arrêt que org.jgrapht.alg.scoring.PageRank (voir {@link CompactPageRank}),
+ * mais chaque sommet tire les contributions de ses prédécesseurs (liste inverse du CSR) : les sommets sont
+ * répartis en blocs traités en parallèle, sans écriture concurrente.
+ * <p>
+ * Les blocs ne dépendent que du graphe (pas du nombre de threads) et les sommes partielles sont combinées
+ * dans l'ordre des blocs : le résultat est identique quel que soit le parallélisme.
+ */
+public final class ParallelPageRank {
+    // Travail visé par bloc (arêtes entrantes + sommets)
+    private static final int BLOCK_WORK = 1 << 16;
+
+    // Appelé après chaque itération avec la variation maximale observée
+    public interface ConvergenceListener {
+        void iteration(int iteration, double maxChange, long elapsedNanos);
+    }
+
+    private final double dampingFactor;
+    private final int maxIterations;
+    private final double tolerance;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private ConvergenceListener listener;
+
+    public ParallelPageRank(double dampingFactor) {
+        this(dampingFactor, CompactPageRank.MAX_ITERATIONS_DEFAULT, CompactPageRank.TOLERANCE_DEFAULT);
+    }
+
+    public ParallelPageRank(double dampingFactor, int maxIterations, double tolerance) {
+        if (maxIterations <= 0) {
+            throw new IllegalArgumentException("Maximum iterations must be positive");
+        }
+        if (dampingFactor < 0.0 || dampingFactor > 1.0) {
+            throw new IllegalArgumentException("Damping factor not valid");
+        }
+        if (tolerance <= 0.0) {
+            throw new IllegalArgumentException("Tolerance not valid, must be positive");
+        }
+        this.dampingFactor = dampingFactor;
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+    }
+
+    public ParallelPageRank parallelism(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = threads;
+        return this;
+    }
+
+    public ParallelPageRank onIteration(ConvergenceListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    // Scores alignés sur les identifiants du graphe, en partant du vecteur uniforme
+    public double[] scores(CsrGraph graph) {
+        int n = graph.vertexCount();
+        double[] start = new double[n];
+        Arrays.fill(start, n == 0 ? 0d : 1.0d / n);
+        return iterate(graph, start);
+    }
+
+    // Scores en partant d'un vecteur initial (ex. IncrementalPageRank.warmStart), qui n'est pas modifié
+    public double[] scores(CsrGraph graph, double[] initial) {
+        if (initial.length != graph.vertexCount()) {
+            throw new IllegalArgumentException(initial.length + " scores initiaux pour " + graph.vertexCount() + " sommets");
+        }
+        return iterate(graph, initial.clone());
+    }
+
+    // Itère à partir de start (le tableau est réutilisé comme tampon)
+    double[] iterate(CsrGraph graph, double[] start) {
+        int n = graph.vertexCount();
+        double[] curScore = start;
+        if (n == 0) return curScore;
+        double[] nextScore = new double[n];
+        double[] contribution = new double[n];
+        int[] blocks = blocks(graph);
+        int blockCount = blocks.length - 1;
+        double[] partialMass = new double[blockCount];
+        double[] partialChange = new double[blockCount];
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            double maxChange = tolerance;
+            int iteration = 0;
+            while (iteration < maxIterations && maxChange >= tolerance) {
+                long iterationStart = System.nanoTime();
+                double[] cur = curScore, next = nextScore;
+
+                // 1. Contribution par arête sortante et masse à redistribuer (téléportation + sommets sans successeur)
+                parallel(pool, blockCount, b -> {
+                    double mass = 0d;
+                    for (int u = blocks[b]; u < blocks[b + 1]; u++) {
+                        int degree = graph.outDegree(u);
+                        if (degree > 0) {
+                            contribution[u] = dampingFactor * cur[u] / degree;
+                            mass += (1d - dampingFactor) * cur[u];
+                        } else {
+                            contribution[u] = 0d;
+                            mass += cur[u];
+                        }
+                    }
+                    partialMass[b] = mass;
+                });
+                double r = 0d;
+                for (double mass : partialMass) r += mass;
+                double teleport = r / n;
+
+                // 2. Chaque sommet somme les contributions de ses prédécesseurs
+                parallel(pool, blockCount, b -> {
+                    double change = 0d;
+                    for (int v = blocks[b]; v < blocks[b + 1]; v++) {
+                        double sum = 0d;
+                        for (int i = graph.inStart(v), end = graph.inEnd(v); i < end; i++) {
+                            sum += contribution[graph.inSource(i)];
+                        }
+                        double value = teleport + sum;
+                        change = Math.max(change, Math.abs(value - cur[v]));
+                        next[v] = value;
+                    }
+                    partialChange[b] = change;
+                });
+                maxChange = 0d;
+                for (double change : partialChange) maxChange = Math.max(maxChange, change);
+
+                curScore = next;
+                nextScore = cur;
+                iteration++;
+                if (listener != null) listener.iteration(iteration, maxChange, System.nanoTime() - iterationStart);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return curScore;
+    }
+
+    // Bornes des blocs de sommets, chacun d'environ BLOCK_WORK arêtes entrantes + sommets
+    private static int[] blocks(CsrGraph graph) {
+        int n = graph.vertexCount();
+        int[] bounds = new int[n + 1];
+        int count = 0;
+        long work = 0;
+        for (int v = 0; v < n; v++) {
+            work += 1 + graph.inDegree(v);
+            if (work >= BLOCK_WORK) {
+                bounds[++count] = v + 1;
+                work = 0;
+            }
+        }
+        if (bounds[count] != n) bounds[++count] = n;
+        return Arrays.copyOf(bounds, count + 1);
+    }
+
+    private static void parallel(ForkJoinPool pool, int blockCount, IntConsumer task) {
+        pool.submit(() -> IntStream.range(0, blockCount).parallel().forEach(task)).join();
+    }
+}
@@ -0,0 +1,151 @@
+package be.pagerank;
+
+import be.graph.VertexDictionary;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Scores PageRank binaires alignés sur les identifiants d'un {@link VertexDictionary} (extension conseillée : .prs).
+ * Remplace les CSV "libellé,score" : pas d'analyse de texte ni de HashMap<String, Double> à la lecture,
+ * le fichier est projeté en mémoire et le score du sommet v se lit directement à la position v.
+ * <p>
+ * Format (little-endian), version 1 :
+ * <pre>
+ *   en-tête, 32 octets : magic "PRSC" | version (int) | n (int) | précision (int : 8 = double, 4 = float)
+ *                        | empreinte du dictionnaire (long) | réservé (8 octets à 0)
+ *   n scores (double ou float)
+ * </pre>
+ * L'empreinte ({@link VertexDictionary#fingerprint()}) permet de refuser des scores calculés sur un autre graphe
+ * ou une autre numérotation des sommets.
+ */
+public final class ScoreStore {
+    private static final int MAGIC = 0x43535250; // "PRSC" lu en little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    public enum Precision {
+        DOUBLE(Double.BYTES), FLOAT(Float.BYTES);
+
+        private final int bytes;
+
+        Precision(int bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private final int size;
+    private final long fingerprint;
+    // Un seul des deux est non nul selon la précision du fichier
+    private final DoubleBuffer doubles;
+    private final FloatBuffer floats;
+
+    private ScoreStore(int size, long fingerprint, DoubleBuffer doubles, FloatBuffer floats) {
+        this.size = size;
+        this.fingerprint = fingerprint;
+        this.doubles = doubles;
+        this.floats = floats;
+    }
+
+    public static void save(VertexDictionary dictionary, double[] scores, Path file) throws IOException {
+        save(dictionary, scores, file, Precision.DOUBLE);
+    }
+
+    /**
+     * Sauve des scores alignés sur le dictionnaire. En {@link Precision#FLOAT} le fichier est deux fois plus petit ;
+     * l'erreur relative (~6e-8) reste bien en deçà de la tolérance de PageRank.
+     */
+    public static void save(VertexDictionary dictionary, double[] scores, Path file, Precision precision) throws IOException {
+        if (scores.length != dictionary.size()) {
+            throw new IllegalArgumentException(scores.length + " scores pour " + dictionary.size() + " sommets");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + precision.bytes * scores.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(scores.length).putInt(precision.bytes)
+                .putLong(dictionary.fingerprint()).putLong(0L);
+        for (double score : scores) {
+            if (precision == Precision.DOUBLE) buffer.putDouble(score);
+            else buffer.putFloat((float) score);
+        }
+        // Même principe que GraphSnapshot : un fichier encore projeté n'est jamais réécrit en place
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, buffer.array());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static ScoreStore open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file + " n'est pas un fichier de scores");
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt() != MAGIC) {
+                throw new IOException(file + " n'est pas un fichier de scores");
+            }
+            int version = mapped.getInt();
+            if (version != VERSION) {
+                throw new IOException("Version de fichier de scores non supportée : " + version + " (attendu " + VERSION + ")");
+            }
+            int n = mapped.getInt();
+            int bytes = mapped.getInt();
+            long fingerprint = mapped.getLong();
+            if (bytes != Double.BYTES && bytes != Float.BYTES || channel.size() != HEADER_SIZE + (long) bytes * n) {
+                throw new IOException("Fichier de scores tronqué ou corrompu : " + file);
+            }
+            ByteBuffer values = mapped.position(HEADER_SIZE).slice().order(ByteOrder.LITTLE_ENDIAN);
+            return bytes == Double.BYTES
+                    ? new ScoreStore(n, fingerprint, values.asDoubleBuffer(), null)
+                    : new ScoreStore(n, fingerprint, null, values.asFloatBuffer());
+        }
+    }
+
+    // Ouvre des scores en vérifiant qu'ils ont été calculés avec la même numérotation que le dictionnaire
+    public static ScoreStore open(Path file, VertexDictionary dictionary) throws IOException {
+        ScoreStore store = open(file);
+        if (!store.matches(dictionary)) {
+            throw new IOException(file + " ne correspond pas aux sommets du graphe (empreinte différente)");
+        }
+        return store;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double score(int v) {
+        return doubles != null ? doubles.get(v) : floats.get(v);
+    }
+
+    public boolean matches(VertexDictionary dictionary) {
+        return dictionary.size() == size && dictionary.fingerprint() == fingerprint;
+    }
+
+    // Copie des scores dans un tableau (pour les variantes CompactGraph des méthodes de similarité)
+    public double[] toArray() {
+        double[] scores = new double[size];
+        if (doubles != null) {
+            doubles.get(0, scores);
+        } else {
+            for (int v = 0; v < size; v++) scores[v] = floats.get(v);
+        }
+        return scores;
+    }
+
+    // Scores indexés par libellé, pour les méthodes qui travaillent encore sur jgrapht
+    public Map<String, Double> toMap(VertexDictionary dictionary) {
+        Map<String, Double> map = new HashMap<>(2 * size);
+        for (int v = 0; v < size; v++) {
+            map.put(dictionary.label(v), score(v));
+        }
+        return map;
+    }
+}
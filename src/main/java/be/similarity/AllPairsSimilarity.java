@@ -0,0 +1,345 @@
+package be.similarity;
+
+import be.BatchComparison;
+import com.google.common.hash.Hashing;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Similarité de toutes les paires d'un corpus de graphes, pour toutes les méthodes d'un {@link SimilarityEvaluator}.
+ * <p>
+ * Chaque graphe est lu, scoré et préparé une seule fois (toutes méthodes confondues, voir {@link GraphArtifacts}) ;
+ * seules les formes préparées sont gardées en mémoire. Le triangle supérieur n x n est ensuite découpé en blocs de
+ * {@code blockSize} x {@code blockSize} graphes répartis sur un ForkJoinPool : un bloc ne touche que 2 blockSize
+ * graphes préparés, qui restent en cache pendant ses blockSize² comparaisons.
+ * <p>
+ * Sortie, dans outputDir : graphs.txt (noms des fichiers dans l'ordre des indices) et, pour chaque méthode,
+ * {@code <méthode>.simm} ({@link SimilarityMatrix}) : matrice complète, ou seulement les {@code topK} plus proches
+ * voisins de chaque graphe. Export CSV optionnel ({@code <méthode>.csv}).
+ */
+public final class AllPairsSimilarity {
+
+    // Avancement d'une phase ("préparation" : graphes, "comparaison" : paires), appelé depuis le thread de run
+    public interface Progress {
+        void report(String phase, long done, long total);
+    }
+
+    private final SimilarityEvaluator evaluator;
+    private final BatchComparison.GraphLoader<DirectedMultigraph<String, DefaultEdge>> graphLoader;
+    private final BatchComparison.ScoreLoader<DirectedMultigraph<String, DefaultEdge>, Map<String, Double>> scoreLoader;
+    private int blockSize = 64;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int topK;
+    private boolean csv;
+    private Progress progress;
+    private long progressMillis = 10_000;
+
+    public AllPairsSimilarity(SimilarityEvaluator evaluator,
+                              BatchComparison.GraphLoader<DirectedMultigraph<String, DefaultEdge>> graphLoader,
+                              BatchComparison.ScoreLoader<DirectedMultigraph<String, DefaultEdge>, Map<String, Double>> scoreLoader) {
+        this.evaluator = evaluator;
+        this.graphLoader = graphLoader;
+        this.scoreLoader = scoreLoader;
+    }
+
+    // Côté d'un bloc de paires, en graphes
+    public AllPairsSimilarity blockSize(int graphs) {
+        this.blockSize = positive(graphs);
+        return this;
+    }
+
+    public AllPairsSimilarity parallelism(int threads) {
+        this.parallelism = positive(threads);
+        return this;
+    }
+
+    // Ne garder que les k plus proches voisins de chaque graphe ; 0 (défaut) : matrice complète
+    public AllPairsSimilarity topK(int k) {
+        if (k < 0) throw new IllegalArgumentException("k doit être positif ou nul : " + k);
+        this.topK = k;
+        return this;
+    }
+
+    public AllPairsSimilarity csv(boolean export) {
+        this.csv = export;
+        return this;
+    }
+
+    public AllPairsSimilarity progress(Progress listener, long intervalMillis) {
+        this.progress = listener;
+        if (intervalMillis <= 0) throw new IllegalArgumentException("La valeur doit être positive : " + intervalMillis);
+        this.progressMillis = intervalMillis;
+        return this;
+    }
+
+    /**
+     * Prépare les graphes de files, compare toutes les paires et écrit les matrices dans outputDir.
+     * La première erreur (lecture, scores, méthode) interrompt le calcul et est relancée.
+     */
+    public void run(List<File> files, Path outputDir) throws IOException {
+        int n = files.size();
+        int methods = evaluator.size();
+        long pairs = SimilarityMatrix.triangleSize(n);
+        if (topK == 0 && pairs > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(n + " graphes : matrice complète trop grande, utiliser topK");
+        }
+        Files.createDirectories(outputDir);
+        List<String> names = new ArrayList<>(n);
+        for (File file : files) names.add(file.getName());
+        long fingerprint = fingerprint(names);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // Phase 1 : une préparation par graphe ; le graphe jgrapht et ses résultats intermédiaires sont ensuite libérés
+            SimilarityEvaluator.Prepared[] prepared = new SimilarityEvaluator.Prepared[n];
+            AtomicLong preparedCount = new AtomicLong();
+            await(pool, new Range(0, n, i -> {
+                File file = files.get(i);
+                try {
+                    DirectedMultigraph<String, DefaultEdge> graph = graphLoader.load(file);
+                    prepared[i] = evaluator.prepare(graph, scoreLoader.scores(file, graph));
+                } catch (Exception e) {
+                    throw new IllegalStateException("Préparation impossible : " + file, e);
+                }
+                preparedCount.incrementAndGet();
+            }), "préparation", preparedCount, n);
+
+            // Phase 2 : blocs (bi <= bj) du triangle supérieur
+            int blocks = (n + blockSize - 1) / blockSize;
+            int[] tiles = new int[blocks * (blocks + 1)];
+            int t = 0;
+            for (int bi = 0; bi < blocks; bi++) {
+                for (int bj = bi; bj < blocks; bj++) {
+                    tiles[t++] = bi;
+                    tiles[t++] = bj;
+                }
+            }
+            Sink sink = topK == 0 ? new FullSink(methods, n) : new TopKSink(methods, n, topK);
+            AtomicLong compared = new AtomicLong();
+            await(pool, new Range(0, tiles.length / 2, tile -> {
+                int rowStart = tiles[2 * tile] * blockSize, colStart = tiles[2 * tile + 1] * blockSize;
+                int rowEnd = Math.min(n, rowStart + blockSize), colEnd = Math.min(n, colStart + blockSize);
+                long done = 0;
+                for (int i = rowStart; i < rowEnd; i++) {
+                    for (int j = Math.max(i, colStart); j < colEnd; j++) {
+                        sink.accept(i, j, evaluator.compare(prepared[i], prepared[j]));
+                        done++;
+                    }
+                }
+                compared.addAndGet(done);
+            }), "comparaison", compared, pairs);
+
+            List<String> methodNames = evaluator.methodNames();
+            Files.write(outputDir.resolve("graphs.txt"), names, StandardCharsets.UTF_8);
+            for (int m = 0; m < methods; m++) {
+                sink.write(m, outputDir.resolve(methodNames.get(m) + ".simm"), fingerprint);
+                if (csv) sink.writeCsv(m, outputDir.resolve(methodNames.get(m) + ".csv"), names);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Empreinte de la liste des graphes, rangée dans l'en-tête de chaque matrice
+    public static long fingerprint(List<String> names) {
+        return Hashing.murmur3_128().hashString(String.join("\n", names), StandardCharsets.UTF_8).asLong();
+    }
+
+    // Exécute task sur le pool ; l'avancement est rapporté depuis le thread appelant, pas depuis les tâches
+    private void await(ForkJoinPool pool, ForkJoinTask<?> task, String phase, AtomicLong done, long total) throws IOException {
+        pool.execute(task);
+        try {
+            while (true) {
+                try {
+                    task.get(progressMillis, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    if (progress != null) progress.report(phase, done.get(), total);
+                }
+            }
+            if (progress != null) progress.report(phase, total, total);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Comparaison interrompue", e);
+        }
+    }
+
+    // Indices [from, to) coupés en deux jusqu'à un seul indice (un graphe ou un bloc : assez de travail par tâche)
+    private static final class Range extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final transient IntConsumer body;
+
+        Range(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) body.accept(from);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Range(from, middle, body), new Range(middle, to, body));
+        }
+    }
+
+    // Destination des similarités d'une paire i <= j, une valeur par méthode
+    private interface Sink {
+        void accept(int i, int j, double[] values);
+
+        void write(int m, Path file, long fingerprint) throws IOException;
+
+        void writeCsv(int m, Path file, List<String> names) throws IOException;
+    }
+
+    // Triangle supérieur par méthode ; chaque paire n'est écrite que par un bloc, la fin du ForkJoinTask publie tout
+    private static final class FullSink implements Sink {
+        private final int n;
+        private final float[][] values;
+
+        FullSink(int methods, int n) {
+            this.n = n;
+            this.values = new float[methods][Math.toIntExact(SimilarityMatrix.triangleSize(n))];
+        }
+
+        @Override
+        public void accept(int i, int j, double[] similarities) {
+            int index = (int) SimilarityMatrix.index(n, i, j);
+            for (int m = 0; m < values.length; m++) values[m][index] = (float) similarities[m];
+        }
+
+        @Override
+        public void write(int m, Path file, long fingerprint) throws IOException {
+            SimilarityMatrix.writeFull(file, n, fingerprint, values[m]);
+        }
+
+        @Override
+        public void writeCsv(int m, Path file, List<String> names) throws IOException {
+            try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                pw.print("graph");
+                for (String name : names) pw.print("," + name);
+                pw.println();
+                for (int i = 0; i < n; i++) {
+                    pw.print(names.get(i));
+                    for (int j = 0; j < n; j++) {
+                        pw.print("," + values[m][(int) SimilarityMatrix.index(n, Math.min(i, j), Math.max(i, j))]);
+                    }
+                    pw.println();
+                }
+            }
+        }
+    }
+
+    /**
+     * k plus proches voisins de chaque graphe (lui-même exclu), triés par similarité décroissante (NaN en dernier)
+     * puis indice croissant. Cet ordre total rend le résultat indépendant de l'ordre d'exécution des blocs.
+     * Une ligne est verrouillée pendant l'insertion (k petit : décalage dans un tableau trié).
+     */
+    private static final class TopKSink implements Sink {
+        private final int n;
+        private final int k;
+        private final int[][] neighbours;
+        private final float[][] similarities;
+        private final Object[] locks;
+
+        TopKSink(int methods, int n, int k) {
+            this.n = n;
+            this.k = k;
+            int entries = Math.multiplyExact(n, k);
+            this.neighbours = new int[methods][entries];
+            this.similarities = new float[methods][entries];
+            for (int[] row : neighbours) Arrays.fill(row, -1);
+            this.locks = new Object[n];
+            for (int i = 0; i < n; i++) locks[i] = new Object();
+        }
+
+        @Override
+        public void accept(int i, int j, double[] values) {
+            if (i == j) return;
+            offer(i, j, values);
+            offer(j, i, values);
+        }
+
+        private void offer(int row, int neighbour, double[] values) {
+            int base = row * k;
+            synchronized (locks[row]) {
+                for (int m = 0; m < values.length; m++) {
+                    float similarity = (float) values[m];
+                    int[] ids = neighbours[m];
+                    float[] sims = similarities[m];
+                    int position = k;
+                    while (position > 0 && before(similarity, neighbour, sims[base + position - 1], ids[base + position - 1])) {
+                        position--;
+                    }
+                    if (position == k) continue;
+                    System.arraycopy(ids, base + position, ids, base + position + 1, k - position - 1);
+                    System.arraycopy(sims, base + position, sims, base + position + 1, k - position - 1);
+                    ids[base + position] = neighbour;
+                    sims[base + position] = similarity;
+                }
+            }
+        }
+
+        // (s, j) passe avant (s2, j2) ; j2 = -1 : place libre. Ordre total : NaN (ex. 0/0 entre graphes vides) en
+        // dernier, puis ordre de Float.compare décroissant, puis indice croissant
+        private static boolean before(float s, int j, float s2, int j2) {
+            if (j2 < 0) return true;
+            if (Float.isNaN(s) != Float.isNaN(s2)) return Float.isNaN(s2);
+            int order = Float.compare(s2, s);
+            return order < 0 || (order == 0 && j < j2);
+        }
+
+        @Override
+        public void write(int m, Path file, long fingerprint) throws IOException {
+            SimilarityMatrix.writeTopK(file, n, k, fingerprint, neighbours[m], similarities[m]);
+        }
+
+        @Override
+        public void writeCsv(int m, Path file, List<String> names) throws IOException {
+            try (PrintWriter pw = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+                pw.println("graph,rank,neighbour,similarity");
+                for (int i = 0; i < n; i++) {
+                    for (int r = 0; r < k && neighbours[m][i * k + r] >= 0; r++) {
+                        int neighbour = neighbours[m][i * k + r];
+                        pw.println(names.get(i) + "," + (r + 1) + "," + names.get(neighbour) + "," + similarities[m][i * k + r]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int positive(int value) {
+        if (value <= 0) throw new IllegalArgumentException("La valeur doit être positive : " + value);
+        return value;
+    }
+}
@@ -0,0 +1,175 @@
+package be.similarity;
+
+import be.similarity.v1.GraphSequence;
+import be.similarity.v1.IndexedGraph;
+import be.similarity.v1.PreparedGraph;
+import be.similarity.v1.Shingles;
+import be.similarity.v1.SignatureSimilarity5Murmur;
+import be.similarity.v1.SignatureStore;
+import com.google.common.base.Suppliers;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Résultats intermédiaires d'un graphe partagés par les méthodes de similarité ({@link SimilarityMethod}) :
+ * chacun est calculé au premier accès, une seule fois, puis réutilisé par toutes les méthodes qui en ont besoin.
+ * <ul>
+ *   <li>{@link #indexedGraph()} : le graphe jgrapht copié en tableaux avec ses scores et les hachages de ses libellés,
+ *   point de départ des trois suivants (un seul parcours du graphe jgrapht) ;</li>
+ *   <li>{@link #preparedGraph()} : numérotation par hachage, successeurs distincts (degrés sortants), scores et rangs
+ *   (VEO, VertexRanking, vertexEdgeVector) ;</li>
+ *   <li>{@link #sequence()} : sérialisation par PageRank (shingles, MinHash) ;</li>
+ *   <li>{@link #shingles(int)} : toutes les tailles k du {@link Plan} en un seul passage sur la séquence ;</li>
+ *   <li>{@link #simHash(int)} : une signature de la plus grande taille du plan, dont les autres sont des préfixes.</li>
+ * </ul>
+ * Avec un {@link SignatureStore}, les shingles, les SimHash et les signatures de {@link #storedInts} sont relus
+ * sur disque quand ils existent déjà pour ce contenu de graphe et ces scores : la clé contient l'empreinte du vecteur
+ * de scores lui-même, des scores recalculés ou relus autrement ne réutilisent donc jamais une entrée périmée.
+ * Chaque résultat a son propre verrou : plusieurs méthodes peuvent préparer le même graphe en parallèle
+ * (voir BatchComparison).
+ */
+public final class GraphArtifacts {
+
+    /**
+     * Besoins annoncés par les méthodes avant toute préparation ({@link SimilarityMethod#declare}) :
+     * tailles de shingles et largeur maximale de SimHash.
+     */
+    public static final class Plan {
+        private final IntArrayList shingleSizes = new IntArrayList();
+        private int simHashBits;
+
+        public Plan shingles(int k) {
+            if (!shingleSizes.contains(k)) shingleSizes.add(k);
+            return this;
+        }
+
+        public Plan simHash(int bits) {
+            simHashBits = Math.max(simHashBits, bits);
+            return this;
+        }
+    }
+
+    private final DirectedMultigraph<String, DefaultEdge> graph;
+    private final Map<String, Double> scores;
+    private final int[] shingleSizes;
+    private final int simHashBits;
+    private final SignatureStore store;
+    private final long fingerprint;
+
+    private final Supplier<IndexedGraph> indexedGraph;
+    private final Supplier<PreparedGraph> preparedGraph;
+    private final Supplier<GraphSequence> sequence;
+    private final Supplier<long[][]> plannedShingles;
+    private final Supplier<long[]> plannedSimHash;
+    // Suffixe des clés du magasin : empreinte des scores, dans l'ordre des sommets
+    private final Supplier<String> scoresKey;
+
+    private GraphArtifacts(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> scores, Plan plan,
+                           SignatureStore store, long fingerprint) {
+        this.graph = graph;
+        this.scores = scores;
+        this.shingleSizes = plan.shingleSizes.toIntArray();
+        this.simHashBits = plan.simHashBits;
+        this.store = store;
+        this.fingerprint = fingerprint;
+        this.indexedGraph = Suppliers.memoize(() -> IndexedGraph.of(graph, scores));
+        this.preparedGraph = Suppliers.memoize(() -> PreparedGraph.of(indexedGraph()));
+        this.sequence = Suppliers.memoize(() -> GraphSequence.of(indexedGraph()));
+        this.plannedShingles = Suppliers.memoize(this::computePlannedShingles);
+        this.plannedSimHash = Suppliers.memoize(() -> computeSimHash(simHashBits));
+        this.scoresKey = Suppliers.memoize(this::computeScoresKey);
+    }
+
+    public static GraphArtifacts of(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> scores, Plan plan) {
+        return new GraphArtifacts(graph, scores, plan, null, 0);
+    }
+
+    /**
+     * Résultats conservés dans store sous l'empreinte du fichier du graphe. L'empreinte des scores (valeur de chaque
+     * sommet, dans l'ordre de vertexSet()) fait aussi partie de la clé, car shingles et SimHash en dépendent.
+     */
+    public static GraphArtifacts stored(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> scores, Plan plan,
+                                        SignatureStore store, long fingerprint) {
+        return new GraphArtifacts(graph, scores, plan, store, fingerprint);
+    }
+
+    public DirectedMultigraph<String, DefaultEdge> graph() {
+        return graph;
+    }
+
+    public Map<String, Double> scores() {
+        return scores;
+    }
+
+    public IndexedGraph indexedGraph() {
+        return indexedGraph.get();
+    }
+
+    public PreparedGraph preparedGraph() {
+        return preparedGraph.get();
+    }
+
+    public GraphSequence sequence() {
+        return sequence.get();
+    }
+
+    // k-shingles triés ; une taille absente du plan est calculée à part, sans être gardée
+    public long[] shingles(int k) {
+        for (int j = 0; j < shingleSizes.length; j++) {
+            if (shingleSizes[j] == k) return plannedShingles.get()[j];
+        }
+        return storedLongs("shingles k=" + k, () -> Shingles.of(sequence(), k));
+    }
+
+    // SimHash (SignatureSimilarity5Murmur) de signatureSize bits, préfixe de la signature du plan si elle suffit
+    public long[] simHash(int signatureSize) {
+        if (signatureSize <= simHashBits) return SignatureSimilarity5Murmur.prefix(plannedSimHash.get(), signatureSize);
+        return computeSimHash(signatureSize);
+    }
+
+    // Signature int[] d'une méthode, relue dans le magasin s'il y en a un (parameters : description complète de la méthode)
+    public int[] storedInts(String parameters, Supplier<int[]> compute) {
+        if (store == null) return compute.get();
+        return store.ints(fingerprint, parameters + " " + scoresKey.get(), compute);
+    }
+
+    public long[] storedLongs(String parameters, Supplier<long[]> compute) {
+        if (store == null) return compute.get();
+        return store.longs(fingerprint, parameters + " " + scoresKey.get(), compute);
+    }
+
+    private long[][] computePlannedShingles() {
+        long[][] shingles = new long[shingleSizes.length][];
+        boolean complete = store != null;
+        for (int j = 0; j < shingleSizes.length && complete; j++) {
+            shingles[j] = store.findLongs(fingerprint, "shingles k=" + shingleSizes[j] + " " + scoresKey.get());
+            complete = shingles[j] != null;
+        }
+        if (complete) return shingles;
+        // Au moins une taille manque : toutes les tailles en un passage, puis enregistrement
+        long[][] computed = Shingles.of(sequence(), shingleSizes);
+        for (int j = 0; j < shingleSizes.length; j++) {
+            long[] values = computed[j];
+            shingles[j] = storedLongs("shingles k=" + shingleSizes[j], () -> values);
+        }
+        return shingles;
+    }
+
+    private String computeScoresKey() {
+        if (scores == null) return "scores=aucun";
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (String v : graph.vertexSet()) hasher.putDouble(scores.getOrDefault(v, 0.0));
+        return "scores=" + Long.toHexString(hasher.hash().asLong());
+    }
+
+    private long[] computeSimHash(int signatureSize) {
+        return storedLongs("simhash murmur size=" + signatureSize,
+                () -> SignatureSimilarity5Murmur.computeSignature(indexedGraph(), signatureSize));
+    }
+}
@@ -0,0 +1,98 @@
+package be.similarity;
+
+import be.similarity.v1.SignatureStore;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Évaluation de plusieurs méthodes de similarité sur les mêmes graphes. Les besoins de toutes les méthodes sont réunis
+ * dans un seul {@link GraphArtifacts.Plan} : séquence, shingles, graphe préparé et SimHash sont calculés une fois par
+ * graphe et servent à toutes les méthodes. Lancer les sept méthodes standard coûte alors à peine plus que la plus
+ * chère d'entre elles.
+ * <p>
+ * Usage type (une référence, beaucoup de candidats) : préparer la référence une fois ({@link #prepare}), puis pour
+ * chaque candidat {@link #compare(Prepared, Prepared)}, ou méthode par méthode avec
+ * {@link #compare(int, Prepared, GraphArtifacts)} pour répartir les méthodes sur plusieurs threads.
+ */
+public final class SimilarityEvaluator {
+
+    // Formes préparées d'un graphe pour chaque méthode de l'évaluateur, dans l'ordre des méthodes
+    public static final class Prepared {
+        private final Object[] values;
+
+        private Prepared(Object[] values) {
+            this.values = values;
+        }
+    }
+
+    private final List<SimilarityMethod<?>> methods;
+    private final GraphArtifacts.Plan plan = new GraphArtifacts.Plan();
+
+    public SimilarityEvaluator(List<? extends SimilarityMethod<?>> methods) {
+        this.methods = List.copyOf(methods);
+        for (SimilarityMethod<?> method : this.methods) method.declare(plan);
+    }
+
+    // Les sept méthodes de SimilarityMethods.standard()
+    public static SimilarityEvaluator standard() {
+        return new SimilarityEvaluator(SimilarityMethods.standard());
+    }
+
+    public List<String> methodNames() {
+        List<String> names = new ArrayList<>();
+        for (SimilarityMethod<?> method : methods) names.add(method.name());
+        return names;
+    }
+
+    public int size() {
+        return methods.size();
+    }
+
+    // Résultats partagés d'un graphe, selon les besoins des méthodes de l'évaluateur
+    public GraphArtifacts artifacts(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> scores) {
+        return GraphArtifacts.of(graph, scores, plan);
+    }
+
+    // Idem, avec les signatures conservées dans store (voir GraphArtifacts.stored)
+    public GraphArtifacts artifacts(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> scores,
+                                    SignatureStore store, long fingerprint) {
+        return GraphArtifacts.stored(graph, scores, plan, store, fingerprint);
+    }
+
+    public Prepared prepare(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> scores) {
+        return prepare(artifacts(graph, scores));
+    }
+
+    public Prepared prepare(GraphArtifacts artifacts) {
+        Object[] values = new Object[methods.size()];
+        for (int m = 0; m < values.length; m++) values[m] = methods.get(m).prepare(artifacts);
+        return new Prepared(values);
+    }
+
+    // Similarité pour chaque méthode, dans l'ordre des méthodes
+    public double[] compare(Prepared first, Prepared second) {
+        double[] values = new double[methods.size()];
+        for (int m = 0; m < values.length; m++) values[m] = compare(methods.get(m), first.values[m], second.values[m]);
+        return values;
+    }
+
+    // Méthode m seule : candidat préparé depuis ses résultats partagés, puis comparé à la référence
+    public double compare(int m, Prepared reference, GraphArtifacts candidate) {
+        return compareWith(methods.get(m), reference.values[m], candidate);
+    }
+
+    // Les objets préparés d'une méthode viennent toujours de cette méthode : les conversions sont sûres
+    @SuppressWarnings("unchecked")
+    private static <P> double compare(SimilarityMethod<P> method, Object first, Object second) {
+        return method.compare((P) first, (P) second);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <P> double compareWith(SimilarityMethod<P> method, Object reference, GraphArtifacts candidate) {
+        return method.compare((P) reference, method.prepare(candidate));
+    }
+}
@@ -0,0 +1,210 @@
+package be.similarity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Matrice de similarité binaire d'un corpus de graphes pour une méthode, écrite par {@link AllPairsSimilarity}
+ * (extension conseillée : .simm). Deux formes :
+ * <ul>
+ *   <li>complète : triangle supérieur diagonale comprise, ligne par ligne (i <= j), en float ;</li>
+ *   <li>top-k : pour chaque graphe, ses k plus proches voisins (autres que lui-même) par similarité décroissante.</li>
+ * </ul>
+ * Format (little-endian), version 1, même principe que ScoreStore :
+ * <pre>
+ *   en-tête, 32 octets : magic "SIMM" | version (int) | n (int) | k (int, 0 = matrice complète)
+ *                        | empreinte de la liste des graphes (long) | réservé (8 octets à 0)
+ *   complète : n (n + 1) / 2 similarités (float)
+ *   top-k    : n k voisins (int, -1 si moins de k voisins) puis n k similarités (float)
+ * </pre>
+ * L'empreinte permet de vérifier que la matrice correspond à la liste de graphes (graphs.txt) rangée à côté.
+ * Le fichier est projeté en mémoire à la lecture, par segments de 1 Go (une projection est limitée à 2 Go) :
+ * les indices sont des long et une matrice complète de plus de 23 000 graphes reste lisible.
+ */
+public final class SimilarityMatrix {
+    private static final int MAGIC = 0x4D4D4953; // "SIMM" lu en little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    // Valeurs écrites par tranches, pour ne pas copier une grande matrice d'un bloc
+    private static final int CHUNK = 1 << 20;
+    // Valeurs (int ou float) par segment projeté
+    private static final int SEGMENT_SHIFT = 28;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final int size;
+    private final int k;
+    private final long fingerprint;
+    // Matrice complète : triangle supérieur ; top-k : voisins et similarités
+    private final FloatBuffer[] values;
+    private final IntBuffer[] neighbours;
+
+    private SimilarityMatrix(int size, int k, long fingerprint, FloatBuffer[] values, IntBuffer[] neighbours) {
+        this.size = size;
+        this.k = k;
+        this.fingerprint = fingerprint;
+        this.values = values;
+        this.neighbours = neighbours;
+    }
+
+    // Position de (i, j), i <= j, dans le triangle supérieur rangé ligne par ligne
+    public static long index(int n, int i, int j) {
+        return (long) i * n - (long) i * (i - 1) / 2 + (j - i);
+    }
+
+    public static long triangleSize(int n) {
+        return (long) n * (n + 1) / 2;
+    }
+
+    static void writeFull(Path file, int n, long fingerprint, float[] upper) throws IOException {
+        if (upper.length != triangleSize(n)) {
+            throw new IllegalArgumentException(upper.length + " valeurs pour un triangle de " + n + " graphes");
+        }
+        write(file, header(n, 0, fingerprint), null, upper);
+    }
+
+    static void writeTopK(Path file, int n, int k, long fingerprint, int[] neighbours, float[] similarities) throws IOException {
+        if (neighbours.length != (long) n * k || similarities.length != neighbours.length) {
+            throw new IllegalArgumentException(neighbours.length + " voisins pour " + n + " graphes et k = " + k);
+        }
+        write(file, header(n, k, fingerprint), neighbours, similarities);
+    }
+
+    public static SimilarityMatrix open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file + " n'est pas une matrice de similarité");
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt() != MAGIC) {
+                throw new IOException(file + " n'est pas une matrice de similarité");
+            }
+            int version = mapped.getInt();
+            if (version != VERSION) {
+                throw new IOException("Version de matrice non supportée : " + version + " (attendu " + VERSION + ")");
+            }
+            int n = mapped.getInt();
+            int k = mapped.getInt();
+            long fingerprint = mapped.getLong();
+            long entries = k == 0 ? triangleSize(n) : (long) n * k;
+            long expected = k == 0 ? Float.BYTES * entries : 2L * Integer.BYTES * entries;
+            if (n < 0 || k < 0 || channel.size() != HEADER_SIZE + expected) {
+                throw new IOException("Matrice de similarité tronquée ou corrompue : " + file);
+            }
+            if (k == 0) return new SimilarityMatrix(n, 0, fingerprint, floats(channel, HEADER_SIZE, entries), null);
+            IntBuffer[] neighbours = ints(channel, HEADER_SIZE, entries);
+            FloatBuffer[] values = floats(channel, HEADER_SIZE + Integer.BYTES * entries, entries);
+            return new SimilarityMatrix(n, k, fingerprint, values, neighbours);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Nombre de voisins par graphe, 0 pour une matrice complète
+    public int topK() {
+        return k;
+    }
+
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    // Similarité entre les graphes i et j (matrice complète, symétrique)
+    public double similarity(int i, int j) {
+        if (k != 0) throw new IllegalStateException("Matrice top-k : seuls les voisins sont conservés");
+        if (i > j) return similarity(j, i);
+        return get(values, index(size, i, j));
+    }
+
+    // rank-ième plus proche voisin de i (0 = le plus proche), -1 s'il y en a moins de rank + 1
+    public int neighbour(int i, int rank) {
+        if (k == 0) throw new IllegalStateException("Matrice complète : pas de liste de voisins");
+        return get(neighbours, entry(i, rank));
+    }
+
+    public double neighbourSimilarity(int i, int rank) {
+        if (k == 0) throw new IllegalStateException("Matrice complète : pas de liste de voisins");
+        return get(values, entry(i, rank));
+    }
+
+    private long entry(int i, int rank) {
+        if (rank < 0 || rank >= k) throw new IndexOutOfBoundsException("Rang " + rank + " hors de [0, " + k + ")");
+        return (long) i * k + rank;
+    }
+
+    private static float get(FloatBuffer[] segments, long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+    }
+
+    private static int get(IntBuffer[] segments, long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+    }
+
+    // count valeurs de 4 octets à partir de position, projetées par segments de 2^SEGMENT_SHIFT valeurs
+    private static ByteBuffer[] map(FileChannel channel, long position, long count) throws IOException {
+        ByteBuffer[] segments = new ByteBuffer[(int) ((count + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+        for (int s = 0; s < segments.length; s++) {
+            long first = (long) s << SEGMENT_SHIFT;
+            long length = Math.min(count - first, 1L << SEGMENT_SHIFT);
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, position + 4 * first, 4 * length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return segments;
+    }
+
+    private static FloatBuffer[] floats(FileChannel channel, long position, long count) throws IOException {
+        ByteBuffer[] mapped = map(channel, position, count);
+        FloatBuffer[] segments = new FloatBuffer[mapped.length];
+        for (int s = 0; s < mapped.length; s++) segments[s] = mapped[s].asFloatBuffer();
+        return segments;
+    }
+
+    private static IntBuffer[] ints(FileChannel channel, long position, long count) throws IOException {
+        ByteBuffer[] mapped = map(channel, position, count);
+        IntBuffer[] segments = new IntBuffer[mapped.length];
+        for (int s = 0; s < mapped.length; s++) segments[s] = mapped[s].asIntBuffer();
+        return segments;
+    }
+
+    private static ByteBuffer header(int n, int k, long fingerprint) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(k).putLong(fingerprint).putLong(0L);
+        return header.flip();
+    }
+
+    // Un fichier encore projeté n'est jamais réécrit en place : fichier temporaire puis déplacement atomique
+    private static void write(Path file, ByteBuffer header, int[] ints, float[] floats) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) channel.write(header);
+            ByteBuffer buffer = ByteBuffer.allocate(Float.BYTES * CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+            if (ints != null) {
+                for (int from = 0; from < ints.length; from += CHUNK) {
+                    int to = Math.min(ints.length, from + CHUNK);
+                    buffer.clear();
+                    buffer.asIntBuffer().put(ints, from, to - from);
+                    buffer.limit(Integer.BYTES * (to - from));
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                }
+            }
+            for (int from = 0; from < floats.length; from += CHUNK) {
+                int to = Math.min(floats.length, from + CHUNK);
+                buffer.clear();
+                buffer.asFloatBuffer().put(floats, from, to - from);
+                buffer.limit(Float.BYTES * (to - from));
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,56 @@
+package be.similarity;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleBiFunction;
+
+/**
+ * Méthode de similarité préparée à partir des résultats partagés d'un graphe ({@link GraphArtifacts}) :
+ * {@link #prepare} une fois par graphe, {@link #compare} par paire (voir aussi be.similarity.v1.PreparedSimilarity).
+ * Les objets préparés ne sont plus modifiés : ils peuvent être comparés depuis plusieurs threads.
+ *
+ * @param <P> forme préparée d'un graphe
+ */
+public interface SimilarityMethod<P> {
+
+    // Nom de la méthode (colonne des CSV de résultats, clé de SimilarityMethods)
+    String name();
+
+    // Résultats partagés dont la méthode aura besoin (tailles de shingles, SimHash), annoncés avant toute préparation
+    default void declare(GraphArtifacts.Plan plan) {
+    }
+
+    P prepare(GraphArtifacts artifacts);
+
+    double compare(P first, P second);
+
+    static <P> SimilarityMethod<P> of(String name, Function<GraphArtifacts, P> prepare, ToDoubleBiFunction<P, P> compare) {
+        return of(name, plan -> {
+        }, prepare, compare);
+    }
+
+    static <P> SimilarityMethod<P> of(String name, Consumer<GraphArtifacts.Plan> declare,
+                                      Function<GraphArtifacts, P> prepare, ToDoubleBiFunction<P, P> compare) {
+        return new SimilarityMethod<>() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void declare(GraphArtifacts.Plan plan) {
+                declare.accept(plan);
+            }
+
+            @Override
+            public P prepare(GraphArtifacts artifacts) {
+                return prepare.apply(artifacts);
+            }
+
+            @Override
+            public double compare(P first, P second) {
+                return compare.applyAsDouble(first, second);
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package be.similarity;
+
+import be.similarity.v1.MinHashEngine;
+import be.similarity.v1.PreparedGraph;
+import be.similarity.v1.SequenceSimilarityJaccard4MinHash;
+import be.similarity.v1.Shingles;
+import be.similarity.v1.SignatureSimilarity5Murmur;
+import be.similarity.v1.SimilarityVEO1;
+import be.similarity.v1.VertexRankingSimilarity2;
+import be.similarity.v1.vertexEdgeVectorSimilarityVS3;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registre des méthodes de similarité, par nom. Il contient d'abord les sept méthodes des benchmarks
+ * ({@link #standard()}, dans l'ordre des colonnes des CSV) ; d'autres peuvent être ajoutées par {@link #register}.
+ * Les fabriques (veo(), shingles(k)...) construisent aussi des variantes non enregistrées.
+ */
+public final class SimilarityMethods {
+    private static final Map<String, SimilarityMethod<?>> REGISTRY = new LinkedHashMap<>();
+    private static final List<SimilarityMethod<?>> STANDARD = List.of(
+            veo(),
+            vertexRanking(),
+            vertexEdgeVector(),
+            shingles("shingle", 3),
+            minHash("minHashJaccard400", MinHashEngine.classic(400, 400), 3),
+            simHash("signature128", 128),
+            simHash("signature512", 512));
+
+    static {
+        for (SimilarityMethod<?> method : STANDARD) register(method);
+    }
+
+    private SimilarityMethods() {
+    }
+
+    // veo, vertexRanking, vertexEdgeVector, shingle, minHashJaccard400, signature128, signature512
+    public static List<SimilarityMethod<?>> standard() {
+        return STANDARD;
+    }
+
+    public static synchronized void register(SimilarityMethod<?> method) {
+        if (REGISTRY.putIfAbsent(method.name(), method) != null) {
+            throw new IllegalArgumentException("Méthode déjà enregistrée : " + method.name());
+        }
+    }
+
+    public static synchronized SimilarityMethod<?> byName(String name) {
+        SimilarityMethod<?> method = REGISTRY.get(name);
+        if (method == null) throw new IllegalArgumentException("Méthode inconnue : " + name + " (connues : " + REGISTRY.keySet() + ")");
+        return method;
+    }
+
+    public static synchronized List<String> names() {
+        return new ArrayList<>(REGISTRY.keySet());
+    }
+
+    public static SimilarityMethod<PreparedGraph> veo() {
+        return SimilarityMethod.of("veo", GraphArtifacts::preparedGraph, SimilarityVEO1::veoSimilarity);
+    }
+
+    public static SimilarityMethod<PreparedGraph> vertexRanking() {
+        return SimilarityMethod.of("vertexRanking", GraphArtifacts::preparedGraph, VertexRankingSimilarity2::vertexRankingSimilarity);
+    }
+
+    public static SimilarityMethod<PreparedGraph> vertexEdgeVector() {
+        return SimilarityMethod.of("vertexEdgeVector", GraphArtifacts::preparedGraph, vertexEdgeVectorSimilarityVS3::vertexEdgeVectorSimilarity);
+    }
+
+    // Jaccard des k-shingles (voir Shingles)
+    public static SimilarityMethod<long[]> shingles(String name, int k) {
+        return SimilarityMethod.of(name, plan -> plan.shingles(k), artifacts -> artifacts.shingles(k), Shingles::jaccardSimilarity);
+    }
+
+    // Estimation MinHash du Jaccard des k-shingles ; la description du moteur fait partie de la clé du magasin
+    public static SimilarityMethod<int[]> minHash(String name, MinHashEngine engine, int k) {
+        return SimilarityMethod.of(name, plan -> plan.shingles(k),
+                artifacts -> artifacts.storedInts(engine + " shingles k=" + k, () -> engine.signature(artifacts.shingles(k))),
+                SequenceSimilarityJaccard4MinHash::estimateMinHashSimilarity);
+    }
+
+    // SimHash pondéré par PageRank (SignatureSimilarity5Murmur) ; toutes les tailles partagent un parcours du graphe
+    public static SimilarityMethod<long[]> simHash(String name, int signatureSize) {
+        return SimilarityMethod.of(name, plan -> plan.simHash(signatureSize), artifacts -> artifacts.simHash(signatureSize),
+                (s1, s2) -> SignatureSimilarity5Murmur.computeSimilarity(s1, s2, signatureSize));
+    }
+}
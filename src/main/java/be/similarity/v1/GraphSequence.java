@@ -0,0 +1,177 @@
+package be.similarity.v1;
+
+import be.graph.CompactGraph;
+import be.graph.CsrGraph;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sérialisation d'un graphe selon la qualité des sommets (PageRank), utilisée par les méthodes shingle et MinHash :
+ * on part du sommet non visité de meilleur score, puis on suit à chaque pas le successeur non visité de meilleur score ;
+ * sans successeur disponible, on repart du meilleur sommet non visité.
+ * <p>
+ * La séquence est un int[] d'identifiants denses ; {@link #label(int)} donne le libellé d'un identifiant.
+ * Les points de reprise sont lus par un curseur dans les sommets triés une fois par score décroissant
+ * (le curseur ne recule jamais), les sommets visités sont marqués dans un BitSet et chaque liste de successeurs
+ * est parcourue avec des comparaisons de double : aucune allocation par pas.
+ */
+public final class GraphSequence {
+    private final String[] labels;
+    private final int[] ids;
+
+    private GraphSequence(String[] labels, int[] ids) {
+        this.labels = labels;
+        this.ids = ids;
+    }
+
+    /**
+     * Les identifiants suivent l'ordre de vertexSet() et les successeurs celui de outgoingEdgesOf() : à score égal,
+     * le premier sommet rencontré l'emporte, comme avec le tri stable et Stream.max de l'ancienne version.
+     */
+    public static GraphSequence of(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> scores) {
+        return of(IndexedGraph.of(graph, scores));
+    }
+
+    // Même sérialisation sur un graphe déjà indexé (mêmes ordres que la version jgrapht)
+    public static GraphSequence of(IndexedGraph graph) {
+        return new GraphSequence(graph.labels, serialize(graph.vertexCount(), arrays(graph.offsets, graph.targets), graph.requireScores()));
+    }
+
+    // Même sérialisation sur un graphe compact (scores alignés sur les identifiants) ; à score égal entre successeurs,
+    // le plus petit identifiant l'emporte (successeurs énumérés par ordre croissant).
+    public static GraphSequence of(CompactGraph graph, double[] scores) {
+        int n = graph.vertexCount();
+        String[] labels = new String[n];
+        for (int v = 0; v < n; v++) labels[v] = graph.label(v);
+        return new GraphSequence(labels, serialize(n, adjacency(graph), scores));
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    // Identifiant du i-ème sommet de la séquence
+    public int id(int i) {
+        return ids[i];
+    }
+
+    public String label(int id) {
+        return labels[id];
+    }
+
+    public int[] ids() {
+        return ids.clone();
+    }
+
+    // Séquence des libellés (vue sans copie), pour les méthodes qui travaillent sur des List<String>
+    public List<String> toLabels() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return labels[ids[index]];
+            }
+
+            @Override
+            public int size() {
+                return ids.length;
+            }
+        };
+    }
+
+    // Successeurs de u : positions [start(u), end(u)) ; abstrait les tableaux construits ici et le CSR
+    private interface Adjacency {
+        int start(int u);
+
+        int end(int u);
+
+        int target(int i);
+    }
+
+    private static int[] serialize(int n, Adjacency adjacency, double[] scores) {
+        int[] sequence = new int[n];
+        int length = 0;
+        BitSet visited = new BitSet(n);
+        int[] sortedVertices = Ranks.byDecreasingScore(scores);
+        int cursor = 0;
+        int currentNode = -1;
+
+        while (length < n) {
+            // Sans nœud courant, reprise au premier sommet non visité dans l'ordre des scores
+            if (currentNode < 0) {
+                while (cursor < n && visited.get(sortedVertices[cursor])) cursor++;
+                if (cursor == n) break;
+                currentNode = sortedVertices[cursor];
+            }
+            visited.set(currentNode);
+            sequence[length++] = currentNode;
+
+            // Successeur non visité de plus gros score (le premier en cas d'égalité)
+            int next = -1;
+            for (int i = adjacency.start(currentNode), end = adjacency.end(currentNode); i < end; i++) {
+                int tgt = adjacency.target(i);
+                if (!visited.get(tgt) && (next < 0 || scores[tgt] > scores[next])) {
+                    next = tgt;
+                }
+            }
+            currentNode = next;
+        }
+        return sequence;
+    }
+
+    private static Adjacency arrays(int[] offsets, int[] targets) {
+        return new Adjacency() {
+            @Override
+            public int start(int u) {
+                return offsets[u];
+            }
+
+            @Override
+            public int end(int u) {
+                return offsets[u + 1];
+            }
+
+            @Override
+            public int target(int i) {
+                return targets[i];
+            }
+        };
+    }
+
+    // Le CSR est lu en place ; les autres graphes compacts sont copiés une fois en tableaux
+    private static Adjacency adjacency(CompactGraph graph) {
+        if (graph instanceof CsrGraph csr) {
+            return new Adjacency() {
+                @Override
+                public int start(int u) {
+                    return csr.outStart(u);
+                }
+
+                @Override
+                public int end(int u) {
+                    return csr.outEnd(u);
+                }
+
+                @Override
+                public int target(int i) {
+                    return csr.outTarget(i);
+                }
+            };
+        }
+        int n = graph.vertexCount();
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[graph.edgeCount()];
+        int e = 0;
+        for (int u = 0; u < n; u++) {
+            IntIterator successors = graph.successors(u);
+            while (successors.hasNext()) targets[e++] = successors.nextInt();
+            offsets[u + 1] = e;
+        }
+        return arrays(offsets, targets);
+    }
+}
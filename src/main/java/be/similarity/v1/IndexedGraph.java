@@ -0,0 +1,94 @@
+package be.similarity.v1;
+
+import com.google.common.hash.Hashing;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import java.util.Map;
+
+/**
+ * Graphe jgrapht copié une fois en tableaux : identifiants dans l'ordre de vertexSet(), successeurs dans l'ordre de
+ * outgoingEdgesOf() (CSR, arêtes multiples comprises), scores alignés et hachage murmur3_128 de chaque libellé.
+ * <p>
+ * {@link GraphSequence}, {@link PreparedGraph} et {@link SignatureSimilarity5Murmur} se construisent à partir de cette
+ * forme : quand plusieurs méthodes préparent le même graphe, la table libellé -> identifiant, le parcours des arêtes
+ * jgrapht et le hachage des libellés ne sont faits qu'une fois. Les ordres étant ceux de jgrapht, les départages
+ * à score égal et les résultats sont ceux des versions jgrapht. Immuable.
+ */
+public final class IndexedGraph {
+    final String[] labels;
+    final int[] offsets;
+    final int[] targets;
+    // null pour un graphe indexé sans scores
+    final double[] scores;
+    // Moitiés 64 bits du murmur3_128 de chaque libellé
+    final long[] hash1;
+    final long[] hash2;
+
+    private IndexedGraph(String[] labels, int[] offsets, int[] targets, double[] scores) {
+        this.labels = labels;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.scores = scores;
+        this.hash1 = new long[labels.length];
+        this.hash2 = new long[labels.length];
+        for (int v = 0; v < labels.length; v++) labelHash(labels[v], hash1, hash2, v);
+    }
+
+    // Scores indexés par libellé (un sommet sans score reçoit 0.0) ; scores peut être null
+    public static IndexedGraph of(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> scores) {
+        int n = graph.vertexSet().size();
+        String[] labels = new String[n];
+        Object2IntOpenHashMap<String> ids = new Object2IntOpenHashMap<>(n);
+        for (String v : graph.vertexSet()) {
+            labels[ids.size()] = v;
+            ids.put(v, ids.size());
+        }
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[graph.edgeSet().size()];
+        int e = 0;
+        for (int u = 0; u < n; u++) {
+            for (DefaultEdge edge : graph.outgoingEdgesOf(labels[u])) {
+                targets[e++] = ids.getInt(graph.getEdgeTarget(edge));
+            }
+            offsets[u + 1] = e;
+        }
+        double[] aligned = null;
+        if (scores != null) {
+            aligned = new double[n];
+            for (int v = 0; v < n; v++) aligned[v] = scores.getOrDefault(labels[v], 0.0);
+        }
+        return new IndexedGraph(labels, offsets, targets, aligned);
+    }
+
+    public int vertexCount() {
+        return labels.length;
+    }
+
+    // Nombre d'arêtes, arêtes multiples comprises
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    public boolean hasScores() {
+        return scores != null;
+    }
+
+    double[] requireScores() {
+        if (scores == null) throw new IllegalStateException("Graphe indexé sans scores");
+        return scores;
+    }
+
+    // Les deux moitiés 64 bits du murmur3_128 du libellé (h1 : HashCode.asLong())
+    static void labelHash(String label, long[] h1, long[] h2, int v) {
+        byte[] bytes = Hashing.murmur3_128().hashUnencodedChars(label).asBytes();
+        long low = 0, high = 0;
+        for (int i = 7; i >= 0; i--) {
+            low = (low << 8) | (bytes[i] & 0xFF);
+            high = (high << 8) | (bytes[i + 8] & 0xFF);
+        }
+        h1[v] = low;
+        h2[v] = high;
+    }
+}
@@ -0,0 +1,119 @@
+package be.similarity.v1;
+
+import java.util.stream.IntStream;
+
+/**
+ * Jaccard d'ensembles donnés sous forme de tableaux triés sans doublon (shingles, identifiants de sommets...).
+ * <p>
+ * |A ∩ B| est compté par une fusion « galopante » : on parcourt le plus petit tableau et chaque valeur est cherchée
+ * dans le plus grand par recherche exponentielle à partir de la dernière position atteinte, soit
+ * O(|A| log(|B| / |A|)) comparaisons ; pour deux tableaux de tailles voisines cela revient à une fusion linéaire.
+ * L'union vaut |A| + |B| - |A ∩ B| : rien n'est alloué en dehors des tableaux d'entrée.
+ * Au-delà de {@link #PARALLEL_THRESHOLD} éléments, le plus petit tableau est découpé en tranches comptées en parallèle
+ * (les bornes de chaque tranche dans le plus grand tableau sont trouvées par dichotomie).
+ */
+public final class Jaccard {
+    public static final int PARALLEL_THRESHOLD = 1 << 20;
+    private static final int CHUNK = 1 << 16;
+
+    private Jaccard() {
+    }
+
+    // Deux ensembles vides donnent NaN (0 / 0), comme la version sur Set<Integer>
+    public static double similarity(int[] a, int[] b) {
+        long intersection = intersectionSize(a, b);
+        return (double) intersection / (a.length + (long) b.length - intersection);
+    }
+
+    public static double similarity(long[] a, long[] b) {
+        long intersection = intersectionSize(a, b);
+        return (double) intersection / (a.length + (long) b.length - intersection);
+    }
+
+    public static long intersectionSize(int[] a, int[] b) {
+        int[] small = a.length <= b.length ? a : b;
+        int[] large = small == a ? b : a;
+        if (small.length == 0) return 0;
+        if (small.length < PARALLEL_THRESHOLD) return gallop(small, 0, small.length, large, 0, large.length);
+        int chunks = (small.length + CHUNK - 1) / CHUNK;
+        return IntStream.range(0, chunks).parallel().mapToLong(c -> {
+            int from = c * CHUNK, to = Math.min(small.length, from + CHUNK);
+            int largeFrom = lowerBound(large, small[from]);
+            int largeTo = to < small.length ? lowerBound(large, small[to]) : large.length;
+            return gallop(small, from, to, large, largeFrom, largeTo);
+        }).sum();
+    }
+
+    public static long intersectionSize(long[] a, long[] b) {
+        long[] small = a.length <= b.length ? a : b;
+        long[] large = small == a ? b : a;
+        if (small.length == 0) return 0;
+        if (small.length < PARALLEL_THRESHOLD) return gallop(small, 0, small.length, large, 0, large.length);
+        int chunks = (small.length + CHUNK - 1) / CHUNK;
+        return IntStream.range(0, chunks).parallel().mapToLong(c -> {
+            int from = c * CHUNK, to = Math.min(small.length, from + CHUNK);
+            int largeFrom = lowerBound(large, small[from]);
+            int largeTo = to < small.length ? lowerBound(large, small[to]) : large.length;
+            return gallop(small, from, to, large, largeFrom, largeTo);
+        }).sum();
+    }
+
+    // Nombre de valeurs de small[from, to) présentes dans large[lo, hi)
+    private static long gallop(int[] small, int from, int to, int[] large, int lo, int hi) {
+        long count = 0;
+        for (int i = from; i < to && lo < hi; i++) {
+            int key = small[i];
+            // Recherche exponentielle : large[lo + step/2] < key <= large[lo + step] (ou fin du tableau)
+            int step = 1;
+            while (lo + step < hi && large[lo + step] < key) step <<= 1;
+            lo = lowerBound(large, lo + (step >> 1), Math.min(hi, lo + step + 1), key);
+            if (lo < hi && large[lo] == key) {
+                count++;
+                lo++;
+            }
+        }
+        return count;
+    }
+
+    private static long gallop(long[] small, int from, int to, long[] large, int lo, int hi) {
+        long count = 0;
+        for (int i = from; i < to && lo < hi; i++) {
+            long key = small[i];
+            int step = 1;
+            while (lo + step < hi && large[lo + step] < key) step <<= 1;
+            lo = lowerBound(large, lo + (step >> 1), Math.min(hi, lo + step + 1), key);
+            if (lo < hi && large[lo] == key) {
+                count++;
+                lo++;
+            }
+        }
+        return count;
+    }
+
+    private static int lowerBound(int[] array, int key) {
+        return lowerBound(array, 0, array.length, key);
+    }
+
+    // Première position de [lo, hi) dont la valeur est >= key (hi si aucune)
+    private static int lowerBound(int[] array, int lo, int hi, int key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (array[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int lowerBound(long[] array, long key) {
+        return lowerBound(array, 0, array.length, key);
+    }
+
+    private static int lowerBound(long[] array, int lo, int hi, long key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (array[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,110 @@
+package be.similarity.v1;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Signatures MinHash de m cases à partir des shingles 64 bits de {@link Shingles}. Deux modes :
+ * <ul>
+ *   <li>{@link #onePermutation} : hachage à une permutation (OPH) avec densification. Un seul hachage par shingle :
+ *   ses bits de poids fort choisissent la case, ses bits de poids faible sont la valeur gardée si elle est plus petite.
+ *   Une case vide reprend la valeur d'une case pleine choisie par une suite de sondages qui ne dépend que de l'indice
+ *   de la case et de la graine (densification « optimale » de Shrivastava) : deux signatures densifiées restent
+ *   comparables case à case. Coût O(n + m).</li>
+ *   <li>{@link #classic} : m fonctions indépendantes h_j(x) = ((a_j x + b_j) mod 2^64) >>> 33 (multiplication-décalage,
+ *   fortement universelle pour des x sur 32 bits), évaluées avec l'API Vector (voir {@link VectorMinHash}).
+ *   Coût O(n m), mais sans division ni modulo : une instruction vectorielle traite plusieurs fonctions à la fois.</li>
+ * </ul>
+ * Les coefficients sont rangés en deux tableaux (a, b) et non en List<int[]>. Dans les deux modes, la proportion
+ * de cases égales ({@link SequenceSimilarityJaccard4MinHash#estimateMinHashSimilarity}) estime le Jaccard.
+ * Deux signatures ne sont comparables que si elles viennent du même moteur (même mode, même m, même graine).
+ */
+public final class MinHashEngine {
+    private final boolean onePermutation;
+    private final int slots;
+    private final long seed;
+    // Mode classique : coefficients de la fonction j en a[j], b[j]
+    private final long[] a;
+    private final long[] b;
+
+    private MinHashEngine(boolean onePermutation, int slots, long seed, long[] a, long[] b) {
+        this.onePermutation = onePermutation;
+        this.slots = slots;
+        this.seed = seed;
+        this.a = a;
+        this.b = b;
+    }
+
+    public static MinHashEngine onePermutation(int slots, long seed) {
+        return new MinHashEngine(true, positive(slots), seed, null, null);
+    }
+
+    public static MinHashEngine classic(int functions, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] a = new long[positive(functions)];
+        long[] b = new long[functions];
+        for (int j = 0; j < functions; j++) {
+            a[j] = random.nextLong() | 1L; // a impair
+            b[j] = random.nextLong();
+        }
+        return new MinHashEngine(false, functions, seed, a, b);
+    }
+
+    public int slots() {
+        return slots;
+    }
+
+    // Mode et paramètres : deux moteurs de même description donnent les mêmes signatures (clé de SignatureStore)
+    @Override
+    public String toString() {
+        return "minhash " + (onePermutation ? "oph" : "classic") + " m=" + slots + " seed=" + seed;
+    }
+
+    // Signature d'un ensemble de shingles (doublons sans effet) ; un ensemble vide donne m cases à Integer.MAX_VALUE
+    public int[] signature(long[] shingles) {
+        if (onePermutation) return onePermutationSignature(shingles);
+        int[] ids = new int[shingles.length];
+        for (int s = 0; s < shingles.length; s++) ids[s] = Shingles.toId(shingles[s]);
+        return VectorMinHash.signature(a, b, ids);
+    }
+
+    private int[] onePermutationSignature(long[] shingles) {
+        int[] signature = new int[slots];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        boolean[] filled = new boolean[slots];
+        for (long shingle : shingles) {
+            long h = HashCommon.mix(shingle ^ seed);
+            int slot = slot(h);
+            int value = (int) h & Integer.MAX_VALUE;
+            if (value < signature[slot]) signature[slot] = value;
+            filled[slot] = true;
+        }
+        if (shingles.length == 0) return signature;
+
+        // Densification : les valeurs copiées sont lues dans les cases pleines d'origine (filled), jamais dans une case déjà densifiée
+        int[] densified = signature.clone();
+        for (int slot = 0; slot < slots; slot++) {
+            if (filled[slot]) continue;
+            long probe = HashCommon.mix(seed + 0x9E3779B97F4A7C15L * (slot + 1));
+            int source = slot(probe);
+            while (!filled[source]) {
+                probe = HashCommon.mix(probe + 1);
+                source = slot(probe);
+            }
+            densified[slot] = signature[source];
+        }
+        return densified;
+    }
+
+    // Case donnée par les 32 bits de poids fort (réduction multiplicative, sans modulo)
+    private int slot(long h) {
+        return (int) (((h >>> 32) * slots) >>> 32);
+    }
+
+    private static int positive(int value) {
+        if (value <= 0) throw new IllegalArgumentException("Le nombre de cases doit être positif : " + value);
+        return value;
+    }
+}
@@ -0,0 +1,163 @@
+package be.similarity.v1;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Index LSH (banding) sur des signatures MinHash ({@link SequenceSimilarityJaccard4MinHash#minHashSignature},
+ * {@link MinHashEngine}) pour retrouver les graphes proches sans comparer toutes les paires.
+ * <p>
+ * Les b r premières cases de chaque signature sont découpées en b bandes de r cases ; chaque bande est hachée vers
+ * un seau. Deux ensembles de Jaccard s partagent au moins un seau avec la probabilité 1 - (1 - s^r)^b, courbe en S
+ * centrée vers (1/b)^(1/r) ({@link #threshold()}) : au-dessus, les paires sont presque toujours candidates, en dessous
+ * presque jamais. Les candidats sont ensuite vérifiés par la proportion de cases égales.
+ * <p>
+ * Chaque requête rapporte le nombre de candidats examinés, pour régler b et r : augmenter r rend l'index plus sélectif
+ * (moins de candidats, plus de faux négatifs), augmenter b fait l'inverse. Non thread-safe : les insertions et requêtes
+ * se font depuis un seul thread (seul {@link #build} calcule les seaux en parallèle).
+ *
+ * @param <K> clé des signatures indexées (nom de fichier...)
+ */
+public final class MinHashLsh<K> {
+
+    public record Match<K>(K key, double similarity) {
+    }
+
+    // Résultat d'une requête : correspondances au-dessus du seuil (similarité décroissante) et nombre de candidats vérifiés
+    public record QueryResult<K>(List<Match<K>> matches, int candidates) {
+    }
+
+    public record Pair<K>(K first, K second, double similarity) {
+    }
+
+    private final int bands;
+    private final int rows;
+    private final List<K> keys = new ArrayList<>();
+    private final List<int[]> signatures = new ArrayList<>();
+    private final List<Long2ObjectOpenHashMap<IntArrayList>> buckets = new ArrayList<>();
+
+    public MinHashLsh(int bands, int rows) {
+        if (bands <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("Nombre de bandes et de lignes non valide : " + bands + " x " + rows);
+        }
+        this.bands = bands;
+        this.rows = rows;
+        for (int band = 0; band < bands; band++) buckets.add(new Long2ObjectOpenHashMap<>());
+    }
+
+    /**
+     * Construction en bloc : les clés de seaux de toutes les signatures sont calculées en parallèle,
+     * puis insérées dans l'ordre de la Map.
+     */
+    public static <K> MinHashLsh<K> build(int bands, int rows, Map<K, int[]> signatures) {
+        MinHashLsh<K> index = new MinHashLsh<>(bands, rows);
+        List<Map.Entry<K, int[]>> entries = new ArrayList<>(signatures.entrySet());
+        for (Map.Entry<K, int[]> entry : entries) index.checkLength(entry.getValue());
+        long[][] bandKeys = new long[entries.size()][];
+        IntStream.range(0, entries.size()).parallel()
+                .forEach(i -> bandKeys[i] = index.bandKeys(entries.get(i).getValue()));
+        for (int i = 0; i < entries.size(); i++) {
+            index.add(entries.get(i).getKey(), entries.get(i).getValue(), bandKeys[i]);
+        }
+        return index;
+    }
+
+    public void insert(K key, int[] signature) {
+        checkLength(signature);
+        add(key, signature, bandKeys(signature));
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    // Jaccard vers lequel la probabilité de devenir candidat bascule : (1/b)^(1/r)
+    public double threshold() {
+        return Math.pow(1.0 / bands, 1.0 / rows);
+    }
+
+    // Probabilité qu'une paire de Jaccard s devienne candidate : 1 - (1 - s^r)^b
+    public double candidateProbability(double jaccard) {
+        return 1.0 - Math.pow(1.0 - Math.pow(jaccard, rows), bands);
+    }
+
+    // Signatures indexées dont la similarité estimée avec signature atteint threshold
+    public QueryResult<K> query(int[] signature, double threshold) {
+        checkLength(signature);
+        long[] bandKeys = bandKeys(signature);
+        BitSet seen = new BitSet(keys.size());
+        List<Match<K>> matches = new ArrayList<>();
+        int candidates = 0;
+        for (int band = 0; band < bands; band++) {
+            IntArrayList bucket = buckets.get(band).get(bandKeys[band]);
+            if (bucket == null) continue;
+            for (int i = 0; i < bucket.size(); i++) {
+                int id = bucket.getInt(i);
+                if (seen.get(id)) continue;
+                seen.set(id);
+                candidates++;
+                double similarity = SequenceSimilarityJaccard4MinHash.estimateMinHashSimilarity(signature, signatures.get(id));
+                if (similarity >= threshold) matches.add(new Match<>(keys.get(id), similarity));
+            }
+        }
+        matches.sort(Comparator.comparingDouble((Match<K> match) -> match.similarity()).reversed());
+        return new QueryResult<>(matches, candidates);
+    }
+
+    // Toutes les paires indexées au-dessus du seuil ; chaque paire n'est vérifiée qu'une fois
+    public List<Pair<K>> similarPairs(double threshold) {
+        List<Pair<K>> pairs = new ArrayList<>();
+        for (int id = 0; id < keys.size(); id++) {
+            long[] bandKeys = bandKeys(signatures.get(id));
+            BitSet seen = new BitSet(id);
+            for (int band = 0; band < bands; band++) {
+                IntArrayList bucket = buckets.get(band).get(bandKeys[band]);
+                for (int i = 0; i < bucket.size(); i++) {
+                    int other = bucket.getInt(i);
+                    // Seules les signatures insérées avant id : (other, id) n'est vue qu'une fois
+                    if (other >= id || seen.get(other)) continue;
+                    seen.set(other);
+                    double similarity = SequenceSimilarityJaccard4MinHash.estimateMinHashSimilarity(signatures.get(other), signatures.get(id));
+                    if (similarity >= threshold) pairs.add(new Pair<>(keys.get(other), keys.get(id), similarity));
+                }
+            }
+        }
+        return pairs;
+    }
+
+    private void add(K key, int[] signature, long[] bandKeys) {
+        int id = keys.size();
+        keys.add(key);
+        signatures.add(signature);
+        for (int band = 0; band < bands; band++) {
+            buckets.get(band).computeIfAbsent(bandKeys[band], k -> new IntArrayList(1)).add(id);
+        }
+    }
+
+    // Clé de seau de chaque bande : hachage des r cases, mélangé avec le numéro de bande
+    private long[] bandKeys(int[] signature) {
+        long[] bandKeys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long h = band;
+            for (int row = band * rows, end = row + rows; row < end; row++) {
+                h = HashCommon.mix(h * 31 + signature[row]);
+            }
+            bandKeys[band] = h;
+        }
+        return bandKeys;
+    }
+
+    private void checkLength(int[] signature) {
+        if (signature.length < bands * rows) {
+            throw new IllegalArgumentException("Signature de " + signature.length + " cases pour " + bands + " bandes de " + rows + " lignes");
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package be.similarity.v1;
+
+import be.graph.CompactGraph;
+import com.google.common.hash.Hashing;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Graphe préparé une fois pour être comparé à beaucoup d'autres ({@link PreparedSimilarity}) par VEO,
+ * VertexRanking et vertexEdgeVector, sans numérotation commune construite pour chaque paire.
+ * <p>
+ * Chaque sommet est identifié par le hachage 64 bits (murmur3) de son libellé, et les sommets sont numérotés dans
+ * l'ordre croissant de ce hachage. Les arêtes distinctes sont rangées en CSR sur cette numérotation, avec des
+ * successeurs croissants. Deux graphes préparés séparément se comparent donc par fusion : fusion des hachages pour les
+ * sommets communs, puis fusion des successeurs pour chaque source commune. Les résultats sont ceux des versions
+ * jgrapht, aux collisions 64 bits et à l'ordre des sommes près.
+ * <p>
+ * Les rangs par score décroissant sont calculés dans l'ordre de vertexSet(), comme dans
+ * {@link VertexRankingSimilarity2}, avant d'être rangés dans l'ordre des hachages : à score égal, le départage reste
+ * celui de la version jgrapht. Immuable, donc partageable entre threads.
+ */
+public final class PreparedGraph {
+    private final long[] hashes;
+    private final int vertexCount;
+    private final int edgeCount;
+    private final int[] offsets;
+    private final int[] targets;
+    // null pour un graphe préparé sans scores (VEO)
+    private final double[] scores;
+    private final int[] ranks;
+
+    private PreparedGraph(long[] hashes, int vertexCount, int edgeCount, int[] offsets, int[] targets, double[] scores, int[] ranks) {
+        this.hashes = hashes;
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.scores = scores;
+        this.ranks = ranks;
+    }
+
+    // Structure seule (VEO)
+    public static PreparedGraph of(DirectedMultigraph<String, DefaultEdge> graph) {
+        return of(graph, null);
+    }
+
+    // Structure et scores (un sommet sans score reçoit 0.0) ; scores peut être null
+    public static PreparedGraph of(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> scores) {
+        return of(IndexedGraph.of(graph, scores));
+    }
+
+    // Graphe déjà indexé : ses hachages de libellés sont réutilisés
+    public static PreparedGraph of(IndexedGraph graph) {
+        return build(graph.hash1, graph.offsets, graph.targets, graph.scores);
+    }
+
+    public static PreparedGraph of(CompactGraph graph) {
+        return of(graph, null);
+    }
+
+    // Graphe compact, scores alignés sur ses identifiants (ou null)
+    public static PreparedGraph of(CompactGraph graph, double[] scores) {
+        int n = graph.vertexCount();
+        long[] labelHashes = new long[n];
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[graph.edgeCount()];
+        int e = 0;
+        for (int u = 0; u < n; u++) {
+            labelHashes[u] = Hashing.murmur3_128().hashUnencodedChars(graph.label(u)).asLong();
+            IntIterator successors = graph.successors(u);
+            while (successors.hasNext()) targets[e++] = successors.nextInt();
+            offsets[u + 1] = e;
+        }
+        return build(labelHashes, offsets, targets, scores);
+    }
+
+    /**
+     * Renumérotation par hachage croissant : position[v] est le nouvel identifiant du sommet v. Deux libellés de même
+     * hachage (collision) deviennent un seul sommet ; il garde le score et le rang du premier.
+     */
+    private static PreparedGraph build(long[] labelHashes, int[] offsets, int[] targets, double[] scores) {
+        int n = labelHashes.length;
+        int[] order = new int[n];
+        for (int v = 0; v < n; v++) order[v] = v;
+        IntArrays.parallelQuickSort(order, (a, b) -> {
+            int byHash = Long.compare(labelHashes[a], labelHashes[b]);
+            return byHash != 0 ? byHash : Integer.compare(a, b);
+        });
+        int[] position = new int[n];
+        long[] hashes = new long[n];
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            long h = labelHashes[order[i]];
+            if (distinct == 0 || hashes[distinct - 1] != h) hashes[distinct++] = h;
+            position[order[i]] = distinct - 1;
+        }
+        hashes = Arrays.copyOf(hashes, distinct);
+
+        double[] sortedScores = null;
+        int[] sortedRanks = null;
+        if (scores != null) {
+            int[] ranks = Ranks.ranks(scores);
+            sortedScores = new double[distinct];
+            sortedRanks = new int[distinct];
+            for (int i = n - 1; i >= 0; i--) {
+                sortedScores[position[order[i]]] = scores[order[i]];
+                sortedRanks[position[order[i]]] = ranks[order[i]];
+            }
+        }
+
+        // Arêtes distinctes (source, cible) dans la nouvelle numérotation, triées
+        long[] keys = new long[targets.length];
+        int k = 0;
+        for (int u = 0; u < n; u++) {
+            long source = (long) position[u] << 32;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) keys[k++] = source | position[targets[e]];
+        }
+        Arrays.parallelSort(keys);
+        int[] newOffsets = new int[distinct + 1];
+        int[] newTargets = new int[keys.length];
+        int m = 0;
+        for (int e = 0; e < keys.length; e++) {
+            if (e > 0 && keys[e] == keys[e - 1]) continue;
+            newTargets[m++] = (int) keys[e];
+            newOffsets[(int) (keys[e] >>> 32) + 1]++;
+        }
+        for (int u = 0; u < distinct; u++) newOffsets[u + 1] += newOffsets[u];
+        return new PreparedGraph(hashes, n, targets.length, newOffsets, Arrays.copyOf(newTargets, m), sortedScores, sortedRanks);
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    // Nombre d'arêtes, arêtes multiples comprises
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public boolean hasScores() {
+        return scores != null;
+    }
+
+    // Sommets distincts (par hachage), numérotés 0..distinctVertices()-1 par hachage croissant
+    int distinctVertices() {
+        return hashes.length;
+    }
+
+    long hash(int v) {
+        return hashes[v];
+    }
+
+    long[] hashes() {
+        return hashes;
+    }
+
+    // Successeurs distincts de v : targets()[offset(v)..offset(v + 1)), croissants
+    int offset(int v) {
+        return offsets[v];
+    }
+
+    int[] targets() {
+        return targets;
+    }
+
+    double score(int v) {
+        return scores[v];
+    }
+
+    int rank(int v) {
+        return ranks[v];
+    }
+
+    // Nombre de successeurs distincts communs à u (dans a) et v (dans b), par fusion sur les hachages
+    static long commonSuccessors(PreparedGraph a, int u, PreparedGraph b, int v) {
+        long common = 0;
+        int i = a.offsets[u], end = a.offsets[u + 1];
+        int j = b.offsets[v], endB = b.offsets[v + 1];
+        while (i < end && j < endB) {
+            int c = Long.compare(a.hashes[a.targets[i]], b.hashes[b.targets[j]]);
+            if (c <= 0) i++;
+            if (c >= 0) j++;
+            if (c == 0) common++;
+        }
+        return common;
+    }
+
+    void requireScores() {
+        if (scores == null) throw new IllegalStateException("Graphe préparé sans scores");
+    }
+}
@@ -0,0 +1,84 @@
+package be.similarity.v1;
+
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.ToDoubleBiFunction;
+
+/**
+ * Méthode de similarité en deux temps : {@link #prepare} calcule une fois par graphe tout ce qui ne dépend que de lui
+ * (séquence, shingles, signature, {@link PreparedGraph}...), {@link #compare} compare deux objets préparés.
+ * Pour comparer une référence à beaucoup de graphes, la référence n'est préparée qu'une fois et chaque candidat coûte
+ * sa préparation plus une comparaison.
+ * <p>
+ * Les objets préparés ne sont pas modifiés après {@link #prepare} (les tableaux renvoyés ne doivent pas l'être non
+ * plus) : ils peuvent être comparés depuis plusieurs threads.
+ *
+ * @param <P> forme préparée d'un graphe
+ */
+public interface PreparedSimilarity<P> {
+
+    P prepare(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> scores);
+
+    double compare(P first, P second);
+
+    // Préparation puis comparaison des deux graphes (sans réutilisation)
+    default double similarity(DirectedMultigraph<String, DefaultEdge> g1, DirectedMultigraph<String, DefaultEdge> g2,
+                              Map<String, Double> pr1, Map<String, Double> pr2) {
+        return compare(prepare(g1, pr1), prepare(g2, pr2));
+    }
+
+    // Comparaison à une référence préparée une seule fois : chaque appel ne prépare que le candidat
+    default ToDoubleBiFunction<DirectedMultigraph<String, DefaultEdge>, Map<String, Double>> against(
+            DirectedMultigraph<String, DefaultEdge> reference, Map<String, Double> scores) {
+        P prepared = prepare(reference, scores);
+        return (graph, graphScores) -> compare(prepared, prepare(graph, graphScores));
+    }
+
+    static <P> PreparedSimilarity<P> of(BiFunction<DirectedMultigraph<String, DefaultEdge>, Map<String, Double>, P> prepare,
+                                        ToDoubleBiFunction<P, P> compare) {
+        return new PreparedSimilarity<>() {
+            @Override
+            public P prepare(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> scores) {
+                return prepare.apply(graph, scores);
+            }
+
+            @Override
+            public double compare(P first, P second) {
+                return compare.applyAsDouble(first, second);
+            }
+        };
+    }
+
+    // VEO : structure seule, les scores sont ignorés
+    static PreparedSimilarity<PreparedGraph> veo() {
+        return of((graph, scores) -> PreparedGraph.of(graph), SimilarityVEO1::veoSimilarity);
+    }
+
+    static PreparedSimilarity<PreparedGraph> vertexRanking() {
+        return of(PreparedGraph::of, VertexRankingSimilarity2::vertexRankingSimilarity);
+    }
+
+    static PreparedSimilarity<PreparedGraph> vertexEdgeVector() {
+        return of(PreparedGraph::of, vertexEdgeVectorSimilarityVS3::vertexEdgeVectorSimilarity);
+    }
+
+    // Jaccard des k-shingles de la séquence (voir GraphSequence, Shingles)
+    static PreparedSimilarity<long[]> shingles(int k) {
+        return of((graph, scores) -> Shingles.of(GraphSequence.of(graph, scores), k), Shingles::jaccardSimilarity);
+    }
+
+    // Estimation MinHash du Jaccard des k-shingles
+    static PreparedSimilarity<int[]> minHash(MinHashEngine engine, int k) {
+        return of((graph, scores) -> engine.signature(Shingles.of(GraphSequence.of(graph, scores), k)),
+                SequenceSimilarityJaccard4MinHash::estimateMinHashSimilarity);
+    }
+
+    // SimHash pondéré par PageRank (voir SignatureSimilarity5Murmur)
+    static PreparedSimilarity<long[]> simHash(int signatureSize) {
+        return of((graph, scores) -> SignatureSimilarity5Murmur.computeSignature(graph, scores, signatureSize),
+                (s1, s2) -> SignatureSimilarity5Murmur.computeSimilarity(s1, s2, signatureSize));
+    }
+}
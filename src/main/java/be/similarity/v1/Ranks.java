@@ -0,0 +1,58 @@
+package be.similarity.v1;
+
+import be.graph.VertexDictionary;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+// Outils de classement partagés par les variantes CompactGraph des méthodes de similarité
+final class Ranks {
+    private Ranks() {
+    }
+
+    /**
+     * Identifiants des sommets triés par score décroissant.
+     * À score égal, l'identifiant le plus petit passe en premier : c'est l'ordre d'un tri stable
+     * (List.sort dans les versions jgrapht, l'ordre de vertexSet() étant conservé), mais la clé (score, id)
+     * est totale et permet un tri parallèle sans perdre le déterminisme.
+     */
+    static int[] byDecreasingScore(double[] scores) {
+        int[] order = new int[scores.length];
+        for (int v = 0; v < order.length; v++) order[v] = v;
+        IntArrays.parallelQuickSort(order, (a, b) -> {
+            int byScore = Double.compare(scores[b], scores[a]);
+            return byScore != 0 ? byScore : Integer.compare(a, b);
+        });
+        return order;
+    }
+
+    /**
+     * Idem pour un graphe compact : à score égal, l'ordre de chargement du graphe ({@link VertexDictionary#loadRank})
+     * passe avant l'identifiant, qui peut venir d'une renumérotation (VertexFamily). Le classement est ainsi celui
+     * de la version jgrapht, quelle que soit la numérotation.
+     */
+    static int[] byDecreasingScore(double[] scores, VertexDictionary dictionary) {
+        int[] order = new int[scores.length];
+        for (int v = 0; v < order.length; v++) order[v] = v;
+        IntArrays.parallelQuickSort(order, (a, b) -> {
+            int byScore = Double.compare(scores[b], scores[a]);
+            return byScore != 0 ? byScore : Integer.compare(dictionary.loadRank(a), dictionary.loadRank(b));
+        });
+        return order;
+    }
+
+    // Rang (1..n) de chaque identifiant, par score décroissant
+    static int[] ranks(double[] scores) {
+        return ranks(byDecreasingScore(scores));
+    }
+
+    static int[] ranks(double[] scores, VertexDictionary dictionary) {
+        return ranks(byDecreasingScore(scores, dictionary));
+    }
+
+    private static int[] ranks(int[] order) {
+        int[] rank = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            rank[order[i]] = i + 1;
+        }
+        return rank;
+    }
+}
@@ -1,61 +1,23 @@
 package be.similarity.v1;
 
+import be.graph.CompactGraph;
 import com.google.common.hash.Hashing;
 import org.jgrapht.graph.*;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import org.jgrapht.graph.DefaultEdge;
 
 public class SequenceSimilarityJaccard4 {
 
-    // Sérialisation du graphe selon la qualité (ici par pageRank)
+    // Sérialisation du graphe selon la qualité (ici par pageRank), voir GraphSequence
     public static List<String> serializeGraph(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> pageRank) {
-        List<String> sequence = new ArrayList<>();
-        Set<String> visited = new HashSet<>();
-
-        // Utilise LinkedHashSet pour garder l'ordre de tri et supprimer efficacement
-        List<String> sortedVertices = new ArrayList<>(graph.vertexSet());
-        sortedVertices.sort(Comparator.comparingDouble(pageRank::get).reversed());
-        Set<String> vertexSet = new LinkedHashSet<>(sortedVertices);
-
-        String currentNode = null;
-
-        while (sequence.size() < graph.vertexSet().size()) {
-            // Si on n'a pas de node courant, prends le premier non visité du set
-            if (currentNode == null) {
-                for (String v : vertexSet) {
-                    if (!visited.contains(v)) {
-                        currentNode = v;
-                        break;
-                    }
-                }
-                if (currentNode == null) break; // plus de sommets à visiter
-            }
-
-            if (!visited.add(currentNode)) {
-                currentNode = null;
-                continue;
-            }
-            sequence.add(currentNode);
-            vertexSet.remove(currentNode);
-
-            // Collecte voisins sortants non visités
-            List<String> neighbors = new ArrayList<>();
-            for (DefaultEdge e : graph.outgoingEdgesOf(currentNode)) {
-                String tgt = graph.getEdgeTarget(e);
-                if (!visited.contains(tgt)) {
-                    neighbors.add(tgt);
-                }
-            }
-            // Prends le voisin avec le plus gros score
-            currentNode = neighbors.stream()
-                    .max(Comparator.comparingDouble(pageRank::get))
-                    .orElse(null);
-        }
-        return sequence;
+        return GraphSequence.of(graph, pageRank).toLabels();
+    }
+
+    // Même sérialisation sur un graphe compact (scores alignés sur les identifiants).
+    // À score égal entre voisins, le plus petit identifiant l'emporte (successeurs énumérés par ordre croissant).
+    public static List<String> serializeGraph(CompactGraph graph, double[] pageRank) {
+        return GraphSequence.of(graph, pageRank).toLabels();
     }
 
     public static int shingleMurmur(String shingle) {
@@ -65,36 +27,35 @@ public class SequenceSimilarityJaccard4 {
 
 
     // Génère l'ensemble des shingles (k-grams) à partir d'une séquence de tokens
+    // (voir Shingles pour la version par hachage glissant sur une GraphSequence)
     public static Set<Integer> shingles(List<String> seq, int k) {
         Set<Integer> shingleSet = new HashSet<>();
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-1");
-            // On parcourt la séquence en extrayant toutes les fenêtres de taille k (k-shingles)
-            for (int i = 0; i <= seq.size() - k; i++) {
-                List<String> window = seq.subList(i, i + k);
-                // On normalise le shingle
-                String shingle = String.join("", window).toLowerCase();
-                // On calcule un hash du shingle
-                int id = Math.abs(shingleMurmur(shingle));
-                shingleSet.add(id);
-            }
-        } catch (NoSuchAlgorithmException e) {
-            // Gestion d’erreur au cas où l’algorithme de hachage SHA-1 n’est pas disponible
-            throw new RuntimeException("SHA-1 algorithm not found", e);
+        // On parcourt la séquence en extrayant toutes les fenêtres de taille k (k-shingles)
+        for (int i = 0; i <= seq.size() - k; i++) {
+            List<String> window = seq.subList(i, i + k);
+            // On normalise le shingle
+            String shingle = String.join("", window).toLowerCase();
+            // On calcule un hash du shingle
+            int id = Math.abs(shingleMurmur(shingle));
+            shingleSet.add(id);
         }
 
         return shingleSet;
     }
 
     // Calcule la similarité de Jaccard entre deux ensembles
+    // sans copier les ensembles : le plus petit est parcouru et chaque élément cherché dans l'autre, |A ∪ B| = |A| + |B| - |A ∩ B|
+    // (voir Jaccard pour des tableaux triés)
     public static double jaccardSimilarity(Set<Integer> s1, Set<Integer> s2) {
-        Set<Integer> intersection = new HashSet<>(s1);
-        intersection.retainAll(s2);
-
-        Set<Integer> union = new HashSet<>(s1);
-        union.addAll(s2);
+        Set<Integer> small = s1.size() <= s2.size() ? s1 : s2;
+        Set<Integer> large = small == s1 ? s2 : s1;
+        int intersection = 0;
+        for (Integer id : small) {
+            if (large.contains(id)) intersection++;
+        }
+        int union = s1.size() + s2.size() - intersection;
 
-        return (double) intersection.size() / union.size();
+        return (double) intersection / union;
     }
 
      public static void main(String[] args) {
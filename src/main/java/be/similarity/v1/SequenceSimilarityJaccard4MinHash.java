@@ -1,5 +1,6 @@
 package be.similarity.v1;
 
+import be.graph.CompactGraph;
 import com.google.common.hash.Hashing;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DirectedMultigraph;
@@ -9,52 +10,15 @@ import java.util.*;
 public class SequenceSimilarityJaccard4MinHash {
     private static final int PRIME = 429496731;
 
-    // Sérialisation du graphe ---
+    // Sérialisation du graphe : même parcours que SequenceSimilarityJaccard4.serializeGraph (voir GraphSequence)
     public static List<String> serializeGraphMinHash(DirectedMultigraph<String, DefaultEdge> graph,  Map<String, Double> scores) {
-        List<String> sequence = new ArrayList<>();
-        Set<String> visited = new HashSet<>();
-
-
-        List<String> sortedVertices = new ArrayList<>(graph.vertexSet());
-        sortedVertices.sort(Comparator.comparingDouble(scores::get).reversed());
-        Set<String> vertexSet = new LinkedHashSet<>(sortedVertices);
-
-        String currentNode = null;
-
-        while (sequence.size() < graph.vertexSet().size()) {
-            if (currentNode == null) {
-                for (String v : vertexSet) {
-                    if (!visited.contains(v)) {
-                        currentNode = v;
-                        break;
-                    }
-                }
-                if (currentNode == null) break;
-            }
-
-            if (!visited.add(currentNode)) {
-                currentNode = null;
-                continue;
-            }
-
-            sequence.add(currentNode);
-            vertexSet.remove(currentNode);
-
-            List<String> neighbors = new ArrayList<>();
-            for (DefaultEdge e : graph.outgoingEdgesOf(currentNode)) {
-                String tgt = graph.getEdgeTarget(e);
-                if (!visited.contains(tgt)) {
-                    neighbors.add(tgt);
-                }
-            }
-
-            currentNode = neighbors.stream()
-                    .max(Comparator.comparingDouble(scores::get))
-                    .orElse(null);
-        }
+        return GraphSequence.of(graph, scores).toLabels();
+    }
 
-        return sequence;
+    public static List<String> serializeGraphMinHash(CompactGraph graph, double[] scores) {
+        return GraphSequence.of(graph, scores).toLabels();
     }
+
     public static int shingleMurmur(String shingle) {
         return Hashing.murmur3_32_fixed().hashUnencodedChars(shingle).asInt();
     }
@@ -87,23 +51,40 @@ public class SequenceSimilarityJaccard4MinHash {
     // Calcul de la signature MinHash ---
     // Calcule le vecteur de signature MinHash du set de shingles fourni.
     // La signature a une case par fonction de hachage (m en tout) : pour chaque fonction, on prend le plus petit hash sur tous les shingles.
+    // (voir MinHashEngine pour le hachage à une permutation et la version vectorisée)
     public static int[] minHashSignature(Set<Integer> shingleIds, List<int[]> hashFunctions) {
-        int[] signature = new int[hashFunctions.size()];
-        // On initialise chaque case à la valeur maximale possible.
-        Arrays.fill(signature, Integer.MAX_VALUE);
-
-        // Pour chaque fonction de hachage
-        for (int i = 0; i < hashFunctions.size(); i++) {
-            int a = hashFunctions.get(i)[0];
-            int b = hashFunctions.get(i)[1];
-
-            // Pour chaque shingle, on calcule le hash et on garde la plus petite valeur obtenue.
-            for (int id : shingleIds) {
-                int hash = (int) (((long) a * id + b) % PRIME);
-                if (hash < signature[i]) {
-                    signature[i] = hash;
-                }
+        int[] ids = new int[shingleIds.size()];
+        int s = 0;
+        for (int id : shingleIds) ids[s++] = id;
+        return minHashSignature(ids, hashFunctions);
+    }
+
+    // Même signature à partir des shingles 64 bits de Shingles (ramenés à des identifiants positifs sur 31 bits)
+    public static int[] minHashSignature(long[] shingles, List<int[]> hashFunctions) {
+        int[] ids = new int[shingles.length];
+        for (int s = 0; s < shingles.length; s++) ids[s] = Shingles.toId(shingles[s]);
+        return minHashSignature(ids, hashFunctions);
+    }
+
+    private static int[] minHashSignature(int[] ids, List<int[]> hashFunctions) {
+        // Coefficients recopiés une fois dans deux tableaux (a, b) au lieu d'un get(i) par fonction
+        int m = hashFunctions.size();
+        int[] a = new int[m];
+        int[] b = new int[m];
+        for (int i = 0; i < m; i++) {
+            a[i] = hashFunctions.get(i)[0];
+            b[i] = hashFunctions.get(i)[1];
+        }
+        int[] signature = new int[m];
+        // Pour chaque fonction de hachage, on garde la plus petite valeur obtenue sur tous les shingles.
+        for (int i = 0; i < m; i++) {
+            long ai = a[i], bi = b[i];
+            int min = Integer.MAX_VALUE;
+            for (int id : ids) {
+                int hash = (int) ((ai * id + bi) % PRIME);
+                if (hash < min) min = hash;
             }
+            signature[i] = min;
         }
         return signature;
     }
@@ -0,0 +1,87 @@
+package be.similarity.v1;
+
+import com.google.common.hash.Hashing;
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.Arrays;
+
+/**
+ * k-shingles d'une séquence de sommets ({@link GraphSequence}) sous forme de hachages 64 bits triés et distincts.
+ * <p>
+ * Chaque sommet reçoit un hachage de son libellé normalisé (minuscules), calculé une fois. Le hachage d'une fenêtre
+ * de k sommets est un hachage polynomial glissant H = t_i B^(k-1) + ... + t_(i+k-1) mod 2^64 : passer à la fenêtre
+ * suivante coûte une multiplication et deux additions, sans sous-liste, String.join ni toLowerCase par position.
+ * Plusieurs valeurs de k peuvent être produites dans le même passage.
+ * <p>
+ * Deux fenêtres égales (mêmes libellés dans le même ordre) ont le même hachage quel que soit le graphe : le Jaccard
+ * des ensembles obtenus est celui de {@link SequenceSimilarityJaccard4#shingles}, aux collisions 64 bits près.
+ */
+public final class Shingles {
+    // Base impaire du hachage polynomial (constante de Fibonacci 64 bits)
+    private static final long BASE = 0x9E3779B97F4A7C15L;
+
+    private Shingles() {
+    }
+
+    public static long[] of(GraphSequence sequence, int k) {
+        return of(sequence, new int[]{k})[0];
+    }
+
+    // Shingles pour chacune des valeurs de ks, calculés en un seul passage sur la séquence
+    public static long[][] of(GraphSequence sequence, int... ks) {
+        for (int k : ks) {
+            if (k <= 0) throw new IllegalArgumentException("Taille de shingle non valide : " + k);
+        }
+        int size = sequence.size();
+        long[] tokens = new long[size];
+        for (int i = 0; i < size; i++) tokens[i] = tokenHash(sequence.label(sequence.id(i)));
+
+        int count = ks.length;
+        long[] powers = new long[count];
+        long[] rolling = new long[count];
+        long[][] buffers = new long[count][];
+        for (int j = 0; j < count; j++) {
+            long power = 1;
+            for (int p = 0; p < ks[j]; p++) power *= BASE;
+            powers[j] = power;
+            buffers[j] = new long[Math.max(0, size - ks[j] + 1)];
+        }
+
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < count; j++) {
+                int k = ks[j];
+                long h = rolling[j] * BASE + tokens[i];
+                if (i >= k) h -= tokens[i - k] * powers[j];
+                rolling[j] = h;
+                if (i >= k - 1) buffers[j][i - k + 1] = HashCommon.mix(h);
+            }
+        }
+
+        long[][] shingles = new long[count][];
+        for (int j = 0; j < count; j++) shingles[j] = sortedDistinct(buffers[j]);
+        return shingles;
+    }
+
+    // Jaccard de deux ensembles de shingles (tableaux triés, sans doublon), voir Jaccard
+    public static double jaccardSimilarity(long[] s1, long[] s2) {
+        return Jaccard.similarity(s1, s2);
+    }
+
+    // Identifiant positif sur 31 bits d'un shingle, pour les fonctions de hachage MinHash (a x + b) % PRIME
+    static int toId(long shingle) {
+        return (int) (shingle ^ (shingle >>> 32)) & Integer.MAX_VALUE;
+    }
+
+    private static long tokenHash(String label) {
+        return Hashing.murmur3_128().hashUnencodedChars(label.toLowerCase()).asLong();
+    }
+
+    private static long[] sortedDistinct(long[] values) {
+        Arrays.parallelSort(values);
+        int count = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[i - 1]) values[count++] = values[i];
+        }
+        return Arrays.copyOf(values, count);
+    }
+}
@@ -1,5 +1,9 @@
 package be.similarity.v1;
 
+import be.graph.CompactGraph;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import it.unimi.dsi.fastutil.ints.IntIterator;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DirectedMultigraph;
 
@@ -11,7 +15,16 @@ import java.security.NoSuchAlgorithmException;
 
 public class SignatureSimilarity5 {
 
-    private static final Map<String, byte[]> hashCache = new HashMap<>(); // global ou static
+    // Cache borné et partagé entre threads (BatchComparison calcule plusieurs signatures en parallèle) ;
+    // voir SignatureSimilarity5Murmur pour une variante sans hachage cryptographique ni cache
+    private static final int HASH_CACHE_SIZE = 1 << 18;
+    private static final Cache<FeatureKey, byte[]> hashCache = CacheBuilder.newBuilder()
+            .maximumSize(HASH_CACHE_SIZE)
+            .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+            .build();
+
+    private record FeatureKey(String feature, int signatureSize) {
+    }
 
     /**
      * Calcule la signature SimHash d'un graphe en utilisant PageRank pour les poids.
@@ -43,7 +56,38 @@ public class SignatureSimilarity5 {
             updateBitSums(bitSums, u + "->" + v, w, signatureSize);
         }
 
-        // Construction de la signature finale : bit = 1 si sum>=0, sinon 0
+        return toSignature(bitSums, signatureSize);
+    }
+
+    /**
+     * Même signature calculée sur un graphe compact (CSR ou WebGraph), les scores étant alignés sur les identifiants.
+     */
+    public static BitSet computeSignature(CompactGraph graph, double[] pageRank, int signatureSize) {
+        double[] bitSums = new double[signatureSize];
+
+        for (int v = 0; v < graph.vertexCount(); v++) {
+            updateBitSums(bitSums, graph.label(v), pageRank[v], signatureSize);
+        }
+
+        for (int u = 0; u < graph.vertexCount(); u++) {
+            int outDeg = graph.outDegree(u);
+            if (outDeg == 0) continue;
+            double qU = pageRank[u];
+            if (outDeg > 2) {
+                outDeg -= 1;
+            }
+            double w = qU / outDeg;
+            String prefix = graph.label(u) + "->";
+            IntIterator successors = graph.successors(u);
+            while (successors.hasNext()) {
+                updateBitSums(bitSums, prefix + graph.label(successors.nextInt()), w, signatureSize);
+            }
+        }
+        return toSignature(bitSums, signatureSize);
+    }
+
+    // Construction de la signature finale : bit = 1 si sum>=0, sinon 0
+    private static BitSet toSignature(double[] bitSums, int signatureSize) {
         BitSet signature = new BitSet(signatureSize);
         for (int i = 0; i < signatureSize; i++) {
             if (bitSums[i] >= 0) {
@@ -53,8 +97,13 @@ public class SignatureSimilarity5 {
         return signature;
     }
     private static byte[] getOrComputeHash(String feature, int signatureSize) {
-        String cacheKey = feature + "_" + signatureSize;
-        return hashCache.computeIfAbsent(cacheKey, (_) -> SignatureSimilarity5.encrypt(feature, signatureSize));
+        FeatureKey cacheKey = new FeatureKey(feature, signatureSize);
+        byte[] hash = hashCache.getIfPresent(cacheKey);
+        if (hash == null) {
+            hash = encrypt(feature, signatureSize);
+            hashCache.put(cacheKey, hash);
+        }
+        return hash;
     }
 
     /**
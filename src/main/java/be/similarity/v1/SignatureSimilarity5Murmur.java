@@ -0,0 +1,149 @@
+package be.similarity.v1;
+
+import be.graph.CompactGraph;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Variante de {@link SignatureSimilarity5} (SimHash pondéré par PageRank) avec un hachage non cryptographique.
+ * <p>
+ * Chaque sommet est haché une fois (murmur3_128 de son libellé, 128 bits). Une arête (u, v) est hachée à partir des
+ * hachages de ses extrémités, sans construire la chaîne "u->v". Les 128 bits de base sont étendus à la taille de la
+ * signature (n'importe quel multiple de 64) par une suite de mots 64 bits dérivés de la base et du rang du mot.
+ * La signature est un long[] et la similarité se calcule par popcount du XOR, mot par mot. Chaque bit ne dépend que
+ * de son rang : la signature de 128 bits est le préfixe de celle de 512 bits ({@link #prefix}), un seul parcours du
+ * graphe suffit pour plusieurs tailles.
+ * <p>
+ * Aucun cache : hacher un libellé coûte moins qu'une recherche dans une table, et la mémoire reste bornée quelle que
+ * soit la taille des graphes. Les signatures ne sont pas comparables à celles de SignatureSimilarity5 (autre hachage).
+ */
+public final class SignatureSimilarity5Murmur {
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private SignatureSimilarity5Murmur() {
+    }
+
+    public static long[] computeSignature(DirectedMultigraph<String, DefaultEdge> graph, Map<String, Double> pageRank, int signatureSize) {
+        return computeSignature(IndexedGraph.of(graph, pageRank), signatureSize);
+    }
+
+    // Même signature sur un graphe déjà indexé (hachages des libellés et scores repris de l'index)
+    public static long[] computeSignature(IndexedGraph graph, int signatureSize) {
+        int words = words(signatureSize);
+        int n = graph.vertexCount();
+        long[] h1 = graph.hash1, h2 = graph.hash2;
+        double[] scores = graph.requireScores();
+        int[] offsets = graph.offsets, targets = graph.targets;
+        Accumulator accumulator = new Accumulator(words);
+        // Sommets : chaque sommet ajoute son score PageRank
+        for (int v = 0; v < n; v++) accumulator.add(h1[v], h2[v], scores[v]);
+
+        // Arêtes : poids = PageRank(u) / outDegree(u) (outDegree - 1 au-delà de 2, comme SignatureSimilarity5)
+        for (int u = 0; u < n; u++) {
+            int outDeg = offsets[u + 1] - offsets[u];
+            if (outDeg == 0) continue;
+            double w = scores[u] / (outDeg > 2 ? outDeg - 1 : outDeg);
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                accumulator.add(edgeHash(h1[u], h1[v]), edgeHash(h2[u], h2[v]), w);
+            }
+        }
+        return accumulator.signature();
+    }
+
+    // Même signature sur un graphe compact (scores alignés sur les identifiants)
+    public static long[] computeSignature(CompactGraph graph, double[] pageRank, int signatureSize) {
+        int words = words(signatureSize);
+        int n = graph.vertexCount();
+        long[] h1 = new long[n];
+        long[] h2 = new long[n];
+        Accumulator accumulator = new Accumulator(words);
+        for (int v = 0; v < n; v++) {
+            IndexedGraph.labelHash(graph.label(v), h1, h2, v);
+            accumulator.add(h1[v], h2[v], pageRank[v]);
+        }
+        for (int u = 0; u < n; u++) {
+            int outDeg = graph.outDegree(u);
+            if (outDeg == 0) continue;
+            double w = pageRank[u] / (outDeg > 2 ? outDeg - 1 : outDeg);
+            IntIterator successors = graph.successors(u);
+            while (successors.hasNext()) {
+                int v = successors.nextInt();
+                accumulator.add(edgeHash(h1[u], h1[v]), edgeHash(h2[u], h2[v]), w);
+            }
+        }
+        return accumulator.signature();
+    }
+
+    /**
+     * Similarité entre deux signatures (1 - distance de Hamming normalisée).
+     */
+    public static double computeSimilarity(long[] s1, long[] s2, int signatureSize) {
+        if (s1.length != s2.length) throw new IllegalArgumentException("Signatures de tailles différentes");
+        int diff = 0;
+        for (int i = 0; i < s1.length; i++) diff += Long.bitCount(s1[i] ^ s2[i]);
+        return 1.0 - ((double) diff / signatureSize);
+    }
+
+    // Signature de signatureSize bits extraite d'une signature plus longue du même graphe
+    public static long[] prefix(long[] signature, int signatureSize) {
+        int words = words(signatureSize);
+        if (words > signature.length) {
+            throw new IllegalArgumentException("Signature de " + signature.length * Long.SIZE + " bits, " + signatureSize + " demandés");
+        }
+        return Arrays.copyOf(signature, words);
+    }
+
+    // Arête orientée : (u, v) et (v, u) donnent des hachages différents
+    private static long edgeHash(long source, long target) {
+        return HashCommon.murmurHash3(Long.rotateLeft(source, 29) ^ target * GOLDEN);
+    }
+
+    private static int words(int signatureSize) {
+        if (signatureSize <= 0 || signatureSize % Long.SIZE != 0) {
+            throw new IllegalArgumentException("Signature size non supporté : " + signatureSize + " (multiple de 64 attendu)");
+        }
+        return signatureSize / Long.SIZE;
+    }
+
+    /**
+     * Sommes pondérées par bit. Plutôt que +w pour un bit à 1 et -w pour un bit à 0, on cumule w sur les bits à 1 et
+     * le poids total à part : somme(±w) >= 0 équivaut à 2 * somme des w des bits à 1 >= poids total.
+     */
+    private static final class Accumulator {
+        private final double[] bitSums;
+        private final int words;
+        private double total;
+
+        Accumulator(int words) {
+            this.words = words;
+            this.bitSums = new double[words * Long.SIZE];
+        }
+
+        void add(long h1, long h2, double weight) {
+            total += weight;
+            for (int word = 0; word < words; word++) {
+                // Mots 0 et 1 : les 128 bits de base ; au-delà, mots dérivés de la base et du rang
+                long bits = word == 0 ? h1 : word == 1 ? h2 : HashCommon.murmurHash3(h1 + word * GOLDEN ^ h2);
+                int base = word * Long.SIZE;
+                while (bits != 0) {
+                    bitSums[base + Long.numberOfTrailingZeros(bits)] += weight;
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        long[] signature() {
+            long[] signature = new long[words];
+            for (int i = 0; i < bitSums.length; i++) {
+                if (2 * bitSums[i] >= total) signature[i >>> 6] |= 1L << i;
+            }
+            return signature;
+        }
+    }
+}
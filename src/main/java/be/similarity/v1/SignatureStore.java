@@ -0,0 +1,173 @@
+package be.similarity.v1;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+
+/**
+ * Signatures précalculées (shingles triés, signatures MinHash, SimHash...) conservées sur disque d'une exécution à
+ * l'autre, pour que les benchmarks ne recalculent pas les esquisses de graphes déjà vus.
+ * <p>
+ * Une entrée est identifiée par l'empreinte du contenu du graphe ({@link #fingerprint(Path)} ou
+ * {@link #fingerprint(DirectedMultigraph)}) et par une description des paramètres de la méthode
+ * (ex. "minhash oph m=400 seed=1 shingles=3 scores=<empreinte des scores>"), qui doit changer dès qu'un paramètre
+ * ou une entrée de la méthode change. Si le fichier
+ * d'un graphe est modifié, son empreinte change : l'ancienne entrée n'est plus jamais lue et la signature est
+ * recalculée. Les entrées sont lues par projection mémoire.
+ * <p>
+ * Format d'un fichier d'entrée (little-endian), version 1, même principe que ScoreStore :
+ * <pre>
+ *   en-tête, 32 octets : magic "SIGS" | version (int) | taille d'élément (int : 4 = int, 8 = long) | longueur (int)
+ *                        | empreinte du graphe (long) | empreinte des paramètres (long)
+ *   valeurs (int ou long)
+ * </pre>
+ * L'en-tête est vérifié à la lecture : un fichier tronqué ou d'une autre entrée est recalculé et réécrit.
+ * Plusieurs threads peuvent utiliser le même magasin : les écritures passent par un fichier temporaire et un
+ * déplacement atomique.
+ */
+public final class SignatureStore {
+    private static final int MAGIC = 0x53474953; // "SIGS" lu en little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    private final Path directory;
+
+    private SignatureStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public static SignatureStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new SignatureStore(directory);
+    }
+
+    // Empreinte du contenu d'un fichier de graphe (liste d'arêtes texte ou .gz)
+    public static long fingerprint(Path file) throws IOException {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                hasher.putBytes(buffer, 0, read);
+            }
+        }
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * Empreinte d'un graphe en mémoire : libellés dans l'ordre de vertexSet(), puis successeurs de chaque sommet dans
+     * l'ordre de outgoingEdgesOf(). L'ordre en fait partie, car les séquences (et donc shingles et MinHash) départagent
+     * les scores égaux dans l'ordre des sommets : deux copies du même graphe construites dans un autre ordre ont des
+     * empreintes différentes.
+     */
+    public static long fingerprint(DirectedMultigraph<String, DefaultEdge> graph) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        hasher.putInt(graph.vertexSet().size()).putInt(graph.edgeSet().size());
+        for (String v : graph.vertexSet()) hasher.putInt(v.length()).putUnencodedChars(v);
+        for (String v : graph.vertexSet()) {
+            hasher.putInt(graph.outDegreeOf(v));
+            for (DefaultEdge e : graph.outgoingEdgesOf(v)) {
+                String target = graph.getEdgeTarget(e);
+                hasher.putInt(target.length()).putUnencodedChars(target);
+            }
+        }
+        return hasher.hash().asLong();
+    }
+
+    // Signature int[] (ex. MinHash) du graphe, lue sur disque ou calculée puis enregistrée
+    public int[] ints(long graphFingerprint, String parameters, Supplier<int[]> compute) {
+        int[] result = findInts(graphFingerprint, parameters);
+        if (result != null) return result;
+        result = compute.get();
+        ByteBuffer buffer = header(graphFingerprint, parameters, Integer.BYTES, result.length);
+        buffer.asIntBuffer().put(result);
+        write(entry(graphFingerprint, parameters), buffer);
+        return result;
+    }
+
+    // Signature long[] (shingles triés, SimHash...) du graphe, lue sur disque ou calculée puis enregistrée
+    public long[] longs(long graphFingerprint, String parameters, Supplier<long[]> compute) {
+        long[] result = findLongs(graphFingerprint, parameters);
+        if (result != null) return result;
+        result = compute.get();
+        ByteBuffer buffer = header(graphFingerprint, parameters, Long.BYTES, result.length);
+        buffer.asLongBuffer().put(result);
+        write(entry(graphFingerprint, parameters), buffer);
+        return result;
+    }
+
+    // Signature int[] enregistrée, ou null si elle n'existe pas (ou plus) pour ce graphe
+    public int[] findInts(long graphFingerprint, String parameters) {
+        ByteBuffer values = read(entry(graphFingerprint, parameters), graphFingerprint, parameters, Integer.BYTES);
+        if (values == null) return null;
+        int[] result = new int[values.remaining() / Integer.BYTES];
+        values.asIntBuffer().get(result);
+        return result;
+    }
+
+    public long[] findLongs(long graphFingerprint, String parameters) {
+        ByteBuffer values = read(entry(graphFingerprint, parameters), graphFingerprint, parameters, Long.BYTES);
+        if (values == null) return null;
+        long[] result = new long[values.remaining() / Long.BYTES];
+        values.asLongBuffer().get(result);
+        return result;
+    }
+
+    private Path entry(long graphFingerprint, String parameters) {
+        return directory.resolve(String.format("%016x-%016x.sig", graphFingerprint, parametersHash(parameters)));
+    }
+
+    // Valeurs de l'entrée projetée, ou null si elle n'existe pas ou ne correspond pas (elle sera recalculée)
+    private static ByteBuffer read(Path file, long graphFingerprint, String parameters, int elementSize) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) return null;
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt() != MAGIC || mapped.getInt() != VERSION || mapped.getInt() != elementSize) return null;
+            int length = mapped.getInt();
+            if (mapped.getLong() != graphFingerprint || mapped.getLong() != parametersHash(parameters)) return null;
+            if (size != HEADER_SIZE + (long) elementSize * length) return null;
+            return mapped.position(HEADER_SIZE).slice().order(ByteOrder.LITTLE_ENDIAN);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture de la signature " + file, e);
+        }
+    }
+
+    private static ByteBuffer header(long graphFingerprint, String parameters, int elementSize, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + elementSize * length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(elementSize).putInt(length)
+                .putLong(graphFingerprint).putLong(parametersHash(parameters));
+        return buffer;
+    }
+
+    // Le buffer est positionné après l'en-tête ; les vues asIntBuffer/asLongBuffer ont écrit les valeurs
+    private static void write(Path file, ByteBuffer buffer) {
+        Path tmp = file.resolveSibling(file.getFileName() + "." + Thread.currentThread().threadId() + ".tmp");
+        try {
+            Files.write(tmp, buffer.array());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture de la signature " + file, e);
+        }
+    }
+
+    private static long parametersHash(String parameters) {
+        return Hashing.murmur3_128().hashString(parameters, StandardCharsets.UTF_8).asLong();
+    }
+}
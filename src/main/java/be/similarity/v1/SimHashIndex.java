@@ -0,0 +1,160 @@
+package be.similarity.v1;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Index de recherche par distance de Hamming sur des signatures SimHash ({@link SignatureSimilarity5Murmur},
+ * ou {@link SignatureSimilarity5} via {@link #insert(Object, BitSet)}), selon le schéma multi-index.
+ * <p>
+ * La signature de n bits est découpée en m blocs contigus, et chaque bloc indexe les signatures dans sa propre table.
+ * Si deux signatures sont à distance au plus d, l'un des m blocs diffère d'au plus floor(d / m) bits (principe des
+ * tiroirs) : une requête énumère, pour chaque bloc, les valeurs à cette distance de son propre bloc, ne vérifie que
+ * les signatures trouvées dans ces cases, puis calcule leur distance exacte par popcount.
+ * <p>
+ * Réglage : des blocs d'environ log2(N) bits pour N signatures ({@link #forCorpus}) donnent des cases de quelques
+ * éléments. Plus le seuil de similarité est bas, plus le rayon par bloc et l'énumération grandissent.
+ * Non thread-safe, comme {@link MinHashLsh}.
+ *
+ * @param <K> clé des signatures indexées
+ */
+public final class SimHashIndex<K> {
+    // Largeur maximale d'un bloc (l'énumération des voisins d'un bloc tient dans un long)
+    private static final int MAX_BLOCK_BITS = 63;
+
+    public record Match<K>(K key, double similarity) {
+    }
+
+    // Résultat d'une requête : signatures au-dessus du seuil (similarité décroissante) et nombre de candidats vérifiés
+    public record QueryResult<K>(List<Match<K>> matches, int candidates) {
+    }
+
+    private final int signatureSize;
+    private final int[] blockStart;
+    private final int[] blockWidth;
+    private final List<K> keys = new ArrayList<>();
+    private final List<long[]> signatures = new ArrayList<>();
+    private final List<Long2ObjectOpenHashMap<IntArrayList>> tables = new ArrayList<>();
+
+    public SimHashIndex(int signatureSize, int blocks) {
+        if (signatureSize <= 0 || blocks <= 0 || blocks > signatureSize) {
+            throw new IllegalArgumentException("Découpage non valide : " + signatureSize + " bits en " + blocks + " blocs");
+        }
+        if ((signatureSize + blocks - 1) / blocks > MAX_BLOCK_BITS) {
+            throw new IllegalArgumentException("Blocs de plus de " + MAX_BLOCK_BITS + " bits : au moins "
+                    + ((signatureSize + MAX_BLOCK_BITS - 1) / MAX_BLOCK_BITS) + " blocs pour " + signatureSize + " bits");
+        }
+        this.signatureSize = signatureSize;
+        this.blockStart = new int[blocks];
+        this.blockWidth = new int[blocks];
+        // Blocs de largeurs égales à un bit près
+        for (int b = 0, start = 0; b < blocks; b++) {
+            blockWidth[b] = signatureSize / blocks + (b < signatureSize % blocks ? 1 : 0);
+            blockStart[b] = start;
+            start += blockWidth[b];
+            tables.add(new Long2ObjectOpenHashMap<>());
+        }
+    }
+
+    // Index dimensionné pour environ expectedSize signatures : blocs de log2(expectedSize) bits (entre 8 et 63)
+    public static <K> SimHashIndex<K> forCorpus(int signatureSize, int expectedSize) {
+        int bits = 64 - Long.numberOfLeadingZeros(Math.max(1, expectedSize));
+        bits = Math.max(8, Math.min(MAX_BLOCK_BITS, bits));
+        return new SimHashIndex<>(signatureSize, Math.max(1, signatureSize / bits));
+    }
+
+    public void insert(K key, long[] signature) {
+        checkLength(signature);
+        int id = keys.size();
+        keys.add(key);
+        signatures.add(signature);
+        for (int b = 0; b < tables.size(); b++) {
+            tables.get(b).computeIfAbsent(block(signature, b), k -> new IntArrayList(1)).add(id);
+        }
+    }
+
+    // Signature BitSet de SignatureSimilarity5 (bit i dans le mot i / 64, comme BitSet.toLongArray)
+    public void insert(K key, BitSet signature) {
+        insert(key, toWords(signature));
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    public QueryResult<K> query(BitSet signature, double minSimilarity) {
+        return query(toWords(signature), minSimilarity);
+    }
+
+    // Signatures indexées dont la similarité (1 - distance / n) atteint minSimilarity
+    public QueryResult<K> query(long[] signature, double minSimilarity) {
+        checkLength(signature);
+        int maxDistance = (int) Math.floor((1.0 - minSimilarity) * signatureSize + 1e-9);
+        if (maxDistance < 0) return new QueryResult<>(List.of(), 0);
+        int radius = maxDistance / tables.size();
+        BitSet seen = new BitSet(keys.size());
+        List<Match<K>> matches = new ArrayList<>();
+        int candidates = 0;
+        for (int b = 0; b < tables.size(); b++) {
+            Long2ObjectOpenHashMap<IntArrayList> table = tables.get(b);
+            long value = block(signature, b);
+            int width = blockWidth[b];
+            // Toutes les valeurs du bloc à distance <= radius : masques de k bits parmi width (astuce de Gosper)
+            for (int k = 0; k <= Math.min(radius, width); k++) {
+                long mask = (1L << k) - 1;
+                while (mask >>> width == 0) {
+                    IntArrayList bucket = table.get(value ^ mask);
+                    if (bucket != null) {
+                        for (int i = 0; i < bucket.size(); i++) {
+                            int id = bucket.getInt(i);
+                            if (seen.get(id)) continue;
+                            seen.set(id);
+                            candidates++;
+                            int distance = distance(signature, signatures.get(id));
+                            if (distance <= maxDistance) {
+                                matches.add(new Match<>(keys.get(id), 1.0 - (double) distance / signatureSize));
+                            }
+                        }
+                    }
+                    if (mask == 0) break;
+                    long lowest = mask & -mask;
+                    long ripple = mask + lowest;
+                    mask = (((ripple ^ mask) >>> 2) / lowest) | ripple;
+                }
+            }
+        }
+        matches.sort(Comparator.comparingDouble((Match<K> match) -> match.similarity()).reversed());
+        return new QueryResult<>(matches, candidates);
+    }
+
+    // Bits [blockStart[b], blockStart[b] + blockWidth[b]) de la signature, éventuellement à cheval sur deux mots
+    private long block(long[] signature, int b) {
+        int start = blockStart[b], width = blockWidth[b];
+        int word = start >>> 6, offset = start & 63;
+        long bits = signature[word] >>> offset;
+        if (offset + width > 64) bits |= signature[word + 1] << (64 - offset);
+        return bits & ((1L << width) - 1);
+    }
+
+    private static int distance(long[] s1, long[] s2) {
+        int diff = 0;
+        for (int i = 0; i < s1.length; i++) diff += Long.bitCount(s1[i] ^ s2[i]);
+        return diff;
+    }
+
+    private long[] toWords(BitSet signature) {
+        return Arrays.copyOf(signature.toLongArray(), (signatureSize + 63) >>> 6);
+    }
+
+    private void checkLength(long[] signature) {
+        if (signature.length != (signatureSize + 63) >>> 6) {
+            throw new IllegalArgumentException("Signature de " + signature.length + " mots pour " + signatureSize + " bits");
+        }
+    }
+}
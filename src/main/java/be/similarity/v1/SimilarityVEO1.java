@@ -1,40 +1,37 @@
 package be.similarity.v1;
 
-import org.jgrapht.alg.util.Pair;
+import be.graph.CompactGraph;
+import be.graph.VertexDictionary;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import org.jgrapht.graph.DirectedMultigraph;
 
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Arrays;
 
 public class SimilarityVEO1 {
     // Calcule la similarité VEO (Vertex/Edge Overlap) entre deux graphes dirigés.
     // VEO mesure la proportion de sommets et d'arêtes partagés par rapport à l'ensemble des sommets et arêtes des deux graphes.
     public static <V,E> double veoSimilarity(DirectedMultigraph<V,E> g1, DirectedMultigraph<V,E> g2) {
-        // On récupère les ensembles de sommets de chaque graphe.
-        Set<V> vs1 = g1.vertexSet();
-        Set<V> vs2 = g2.vertexSet();
+        // On numérote les sommets de g1 (0..n1-1) ; un sommet de g2 déjà numéroté est un sommet commun,
+        // les autres reçoivent les identifiants suivants.
+        Object2IntOpenHashMap<V> ids = new Object2IntOpenHashMap<>(g1.vertexSet().size() + g2.vertexSet().size());
+        ids.defaultReturnValue(-1);
+        for (V v : g1.vertexSet()) ids.put(v, ids.size());
+        long commonV = 0;
+        for (V v : g2.vertexSet()) {
+            if (ids.getInt(v) >= 0) commonV++;
+            else ids.put(v, ids.size());
+        }
 
-        // On compte le nombre de sommets communs (intersection des deux ensembles).
-        long commonV = vs1.stream().filter(vs2::contains).count();
+        // Chaque arête devient une clé long (source << 32 | cible) ; après tri, les arêtes multiples sont adjacentes.
+        long[] edges1 = edgeKeys(g1, ids);
+        long[] edges2 = edgeKeys(g2, ids);
 
-        // On construit l'ensemble des arêtes de g1 sous forme de paires (source, cible).
-        Set<Pair<V, V>> edges1 = g1.edgeSet().stream()
-                .map(e -> Pair.of(g1.getEdgeSource(e), g1.getEdgeTarget(e)))
-                .collect(Collectors.toSet());
-
-        // Idem pour g2.
-        Set<Pair<V, V>> edges2 = g2.edgeSet().stream()
-                .map(e -> Pair.of(g2.getEdgeSource(e), g2.getEdgeTarget(e)))
-                .collect(Collectors.toSet());
-
-        // On garde uniquement les arêtes communes aux deux graphes (intersection des ensembles de paires).
-        edges1.retainAll(edges2); // intersection
-
-        // Nombre d'arêtes communes.
-        int commonE = edges1.size();
+        // Nombre d'arêtes communes (couples (source, cible) distincts présents dans les deux graphes), par fusion.
+        long commonE = countCommonDistinct(edges1, edges2);
 
         // Tailles des ensembles de sommets et d'arêtes pour chaque graphe.
-        int sizeV1 = vs1.size(), sizeV2 = vs2.size();
+        int sizeV1 = g1.vertexSet().size(), sizeV2 = g2.vertexSet().size();
         int sizeE1 = g1.edgeSet().size(), sizeE2 = g2.edgeSet().size();
 
         // Calcul de la similarité VEO selon la formule
@@ -42,4 +39,136 @@ public class SimilarityVEO1 {
         return 2.0 * (commonV + commonE)
                 / (sizeV1 + sizeV2 + sizeE1 + sizeE2);
     }
+
+    // Clés triées des arêtes de g ; la source n'est cherchée qu'une fois par sommet
+    private static <V,E> long[] edgeKeys(DirectedMultigraph<V,E> g, Object2IntOpenHashMap<V> ids) {
+        long[] keys = new long[g.edgeSet().size()];
+        int k = 0;
+        for (V u : g.vertexSet()) {
+            long source = (long) ids.getInt(u) << 32;
+            for (E e : g.outgoingEdgesOf(u)) {
+                keys[k++] = source | ids.getInt(g.getEdgeTarget(e));
+            }
+        }
+        Arrays.parallelSort(keys);
+        return keys;
+    }
+
+    // Nombre de valeurs distinctes présentes dans deux tableaux triés (doublons permis)
+    static long countCommonDistinct(long[] a, long[] b) {
+        long common = 0;
+        int i = 0, j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                long key = a[i];
+                common++;
+                while (i < a.length && a[i] == key) i++;
+                while (j < b.length && b[j] == key) j++;
+            }
+        }
+        return common;
+    }
+
+    // Même calcul sur deux graphes compacts (CSR ou WebGraph) : chaque arête de g1 est cherchée dans les successeurs triés de g2.
+    public static double veoSimilarity(CompactGraph g1, CompactGraph g2) {
+        if (g1.dictionary().sameFamily(g2.dictionary())) {
+            return veoSimilaritySameFamily(g1, g2);
+        }
+        int[] toG2 = g1.dictionary().mapTo(g2.dictionary());
+
+        long commonV = 0;
+        long commonE = 0;
+        for (int u = 0; u < g1.vertexCount(); u++) {
+            int u2 = toG2[u];
+            if (u2 < 0) continue;
+            commonV++;
+            IntIterator successors = g1.successors(u);
+            int previous = -1;
+            while (successors.hasNext()) {
+                int v = successors.nextInt();
+                // Les arêtes multiples ne comptent qu'une fois, comme dans l'ensemble de paires.
+                if (v == previous) continue;
+                previous = v;
+                int v2 = toG2[v];
+                if (v2 >= 0 && g2.hasEdge(u2, v2)) commonE++;
+            }
+        }
+
+        int sizeV1 = g1.vertexCount(), sizeV2 = g2.vertexCount();
+        int sizeE1 = g1.edgeCount(), sizeE2 = g2.edgeCount();
+        return 2.0 * (commonV + commonE)
+                / (sizeV1 + sizeV2 + sizeE1 + sizeE2);
+    }
+
+    // Même calcul sur deux graphes préparés (voir PreparedGraph) : sommets et arêtes communs par fusion des hachages
+    public static double veoSimilarity(PreparedGraph g1, PreparedGraph g2) {
+        long commonV = Jaccard.intersectionSize(g1.hashes(), g2.hashes());
+        long commonE = 0;
+        int i = 0, j = 0;
+        while (i < g1.distinctVertices() && j < g2.distinctVertices()) {
+            int c = Long.compare(g1.hash(i), g2.hash(j));
+            if (c == 0) commonE += PreparedGraph.commonSuccessors(g1, i, g2, j);
+            if (c <= 0) i++;
+            if (c >= 0) j++;
+        }
+        int sizeV1 = g1.vertexCount(), sizeV2 = g2.vertexCount();
+        int sizeE1 = g1.edgeCount(), sizeE2 = g2.edgeCount();
+        return 2.0 * (commonV + commonE)
+                / (sizeV1 + sizeV2 + sizeE1 + sizeE2);
+    }
+
+    // Graphes d'une même famille : sommets communs par intersection de bitsets sur les identifiants partagés,
+    // arêtes communes par fusion des listes de successeurs (toutes deux croissantes en identifiants de famille).
+    private static double veoSimilaritySameFamily(CompactGraph g1, CompactGraph g2) {
+        VertexDictionary d1 = g1.dictionary(), d2 = g2.dictionary();
+        int n1 = g1.vertexCount(), n2 = g2.vertexCount();
+        int maxId = Math.max(n1 == 0 ? 0 : d1.familyId(n1 - 1), n2 == 0 ? 0 : d2.familyId(n2 - 1));
+        long[] bits1 = new long[(maxId >>> 6) + 1];
+        long[] bits2 = new long[bits1.length];
+        for (int u = 0; u < n1; u++) bits1[d1.familyId(u) >>> 6] |= 1L << d1.familyId(u);
+        for (int u = 0; u < n2; u++) bits2[d2.familyId(u) >>> 6] |= 1L << d2.familyId(u);
+        long commonV = 0;
+        for (int w = 0; w < bits1.length; w++) commonV += Long.bitCount(bits1[w] & bits2[w]);
+
+        long commonE = 0;
+        int u2 = 0;
+        for (int u = 0; u < n1; u++) {
+            // Les deux numérotations suivent l'ordre de la famille : le pendant de u dans g2 s'obtient en avançant
+            int f = d1.familyId(u);
+            while (u2 < n2 && d2.familyId(u2) < f) u2++;
+            if (u2 == n2) break;
+            if (d2.familyId(u2) != f) continue;
+            commonE += commonSuccessors(g1.successors(u), d1, g2.successors(u2), d2);
+        }
+
+        int sizeV1 = n1, sizeV2 = n2;
+        int sizeE1 = g1.edgeCount(), sizeE2 = g2.edgeCount();
+        return 2.0 * (commonV + commonE)
+                / (sizeV1 + sizeV2 + sizeE1 + sizeE2);
+    }
+
+    // Nombre de successeurs distincts communs, par fusion de deux listes croissantes
+    private static long commonSuccessors(IntIterator it1, VertexDictionary d1, IntIterator it2, VertexDictionary d2) {
+        long common = 0;
+        int a = it1.hasNext() ? d1.familyId(it1.nextInt()) : Integer.MAX_VALUE;
+        int b = it2.hasNext() ? d2.familyId(it2.nextInt()) : Integer.MAX_VALUE;
+        while (a != Integer.MAX_VALUE && b != Integer.MAX_VALUE) {
+            if (a < b) {
+                a = it1.hasNext() ? d1.familyId(it1.nextInt()) : Integer.MAX_VALUE;
+            } else if (a > b) {
+                b = it2.hasNext() ? d2.familyId(it2.nextInt()) : Integer.MAX_VALUE;
+            } else {
+                common++;
+                // Saute les doublons (arêtes multiples) des deux côtés
+                int current = a;
+                while (a == current) a = it1.hasNext() ? d1.familyId(it1.nextInt()) : Integer.MAX_VALUE;
+                while (b == current) b = it2.hasNext() ? d2.familyId(it2.nextInt()) : Integer.MAX_VALUE;
+            }
+        }
+        return common;
+    }
 }
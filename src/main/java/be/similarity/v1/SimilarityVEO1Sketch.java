@@ -0,0 +1,159 @@
+package be.similarity.v1;
+
+import be.graph.CompactGraph;
+import com.google.common.hash.Hashing;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Esquisse précalculée d'un graphe pour estimer VEO (voir {@link SimilarityVEO1}) sans garder les graphes en mémoire.
+ * <p>
+ * L'esquisse conserve les tailles exactes (sommets, arêtes avec multiplicité, couples (source, cible) distincts)
+ * et, pour les sommets comme pour les arêtes distinctes, les k plus petites valeurs de hachage 64 bits (KMV / bottom-k
+ * MinHash). Pour deux esquisses, la proportion de valeurs communes parmi les k plus petites de l'union estime le
+ * Jaccard J des deux ensembles ; l'intersection vaut alors J (|A| + |B|) / (1 + J) avec les tailles exactes.
+ * Si un ensemble a au plus k éléments, son esquisse le contient en entier et l'estimation est exacte.
+ * La comparaison est une fusion de tableaux triés : O(k), quelle que soit la taille des graphes.
+ * <p>
+ * Borne d'erreur : l'écart-type de l'estimateur de J est sqrt(J (1 - J) / k). Comme VEO est une moyenne pondérée
+ * (poids <= 1) des deux termes 2 |A ∩ B| / total, et que d/dJ [J / (1 + J)] = 1 / (1 + J)², l'écart-type de VEO
+ * est au plus max_J 2 sqrt(J (1 - J)) / (1 + J)² / sqrt(k) ≈ 0.56 / sqrt(k) (voir {@link #standardError(int)}).
+ * Avec k = 8192 (par défaut) : écart-type <= 0.0062 dans le pire cas (J ≈ 0.2), <= 0.002 pour des graphes
+ * proches (J >= 0.9). Taille : 2 k long, soit 128 Ko par graphe.
+ */
+public final class SimilarityVEO1Sketch {
+    public static final int DEFAULT_SIZE = 8192;
+
+    private final int vertexCount;
+    private final int edgeCount;
+    private final long distinctEdgeCount;
+    private final long[] vertexHashes;
+    private final long[] edgeHashes;
+
+    private SimilarityVEO1Sketch(int vertexCount, int edgeCount, long distinctEdgeCount, long[] vertexHashes, long[] edgeHashes) {
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.distinctEdgeCount = distinctEdgeCount;
+        this.vertexHashes = vertexHashes;
+        this.edgeHashes = edgeHashes;
+    }
+
+    public static SimilarityVEO1Sketch of(DirectedMultigraph<String, DefaultEdge> graph) {
+        return of(graph, DEFAULT_SIZE);
+    }
+
+    public static SimilarityVEO1Sketch of(DirectedMultigraph<String, DefaultEdge> graph, int size) {
+        long[] vertices = new long[graph.vertexSet().size()];
+        int i = 0;
+        for (String v : graph.vertexSet()) vertices[i++] = labelHash(v);
+        long[] edges = new long[graph.edgeSet().size()];
+        int e = 0;
+        for (String u : graph.vertexSet()) {
+            long hu = labelHash(u);
+            for (DefaultEdge edge : graph.outgoingEdgesOf(u)) {
+                edges[e++] = edgeHash(hu, labelHash(graph.getEdgeTarget(edge)));
+            }
+        }
+        return build(vertices, edges, size);
+    }
+
+    // Même esquisse depuis un graphe compact : les libellés sont hachés de la même façon, les esquisses se comparent
+    public static SimilarityVEO1Sketch of(CompactGraph graph, int size) {
+        int n = graph.vertexCount();
+        long[] vertices = new long[n];
+        for (int v = 0; v < n; v++) vertices[v] = labelHash(graph.label(v));
+        long[] edges = new long[graph.edgeCount()];
+        int e = 0;
+        for (int u = 0; u < n; u++) {
+            IntIterator successors = graph.successors(u);
+            while (successors.hasNext()) {
+                edges[e++] = edgeHash(vertices[u], vertices[successors.nextInt()]);
+            }
+        }
+        return build(vertices, edges, size);
+    }
+
+    private static SimilarityVEO1Sketch build(long[] vertices, long[] edges, int size) {
+        if (size <= 0) throw new IllegalArgumentException("Taille d'esquisse non valide : " + size);
+        Arrays.parallelSort(vertices);
+        Arrays.parallelSort(edges);
+        int distinctEdges = distinct(edges);
+        int distinctVertices = distinct(vertices);
+        return new SimilarityVEO1Sketch(vertices.length, edges.length, distinctEdges,
+                Arrays.copyOf(vertices, Math.min(size, distinctVertices)),
+                Arrays.copyOf(edges, Math.min(size, distinctEdges)));
+    }
+
+    /**
+     * Estimation de VEO entre les deux graphes esquissés. Les deux esquisses doivent avoir la même taille k
+     * (sinon la plus petite fixe la précision).
+     */
+    public double estimate(SimilarityVEO1Sketch other) {
+        double commonV = intersection(vertexHashes, vertexCount, other.vertexHashes, other.vertexCount);
+        double commonE = intersection(edgeHashes, distinctEdgeCount, other.edgeHashes, other.distinctEdgeCount);
+        return 2.0 * (commonV + commonE)
+                / (vertexCount + other.vertexCount + edgeCount + other.edgeCount);
+    }
+
+    public static double similarity(SimilarityVEO1Sketch s1, SimilarityVEO1Sketch s2) {
+        return s1.estimate(s2);
+    }
+
+    // Écart-type maximal de l'estimation de VEO pour des esquisses de taille k (voir la documentation de la classe)
+    public static double standardError(int size) {
+        return 0.56 / Math.sqrt(size);
+    }
+
+    // |A ∩ B| estimé à partir des k plus petites valeurs de A et de B et de leurs tailles exactes
+    private static double intersection(long[] a, long sizeA, long[] b, long sizeB) {
+        // Deux ensembles complets : la fusion parcourt toute l'union et le résultat est exact
+        boolean exact = a.length == sizeA && b.length == sizeB;
+        int k = exact ? Integer.MAX_VALUE : Math.min(a.length, b.length);
+        // k plus petites valeurs de l'union, et combien d'entre elles sont dans les deux esquisses
+        int i = 0, j = 0, taken = 0, common = 0;
+        while (taken < k && (i < a.length || j < b.length)) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                i++;
+            } else if (i == a.length || b[j] < a[i]) {
+                j++;
+            } else {
+                common++;
+                i++;
+                j++;
+            }
+            taken++;
+        }
+        if (taken == 0) return 0.0;
+        double jaccard = (double) common / taken;
+        return jaccard * (sizeA + sizeB) / (1.0 + jaccard);
+    }
+
+    private static int distinct(long[] sorted) {
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) sorted[count++] = sorted[i];
+        }
+        return count;
+    }
+
+    private static long labelHash(String label) {
+        return Hashing.murmur3_128().hashString(label, StandardCharsets.UTF_8).asLong();
+    }
+
+    private static long edgeHash(long source, long target) {
+        return HashCommon.murmurHash3(Long.rotateLeft(source, 23) ^ target);
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+}
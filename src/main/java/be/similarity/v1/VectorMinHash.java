@@ -0,0 +1,59 @@
+package be.similarity.v1;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Mode classique de {@link MinHashEngine} avec l'API Vector (module jdk.incubator.vector, voir pom.xml) :
+ * les fonctions de hachage occupent les voies des vecteurs et chaque identifiant de shingle est diffusé dans toutes
+ * les voies. Quatre vecteurs d'accumulateurs sont gardés en registres par passage sur les identifiants.
+ * Classe séparée pour que le mode une permutation ne charge pas le module.
+ */
+final class VectorMinHash {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final int SHIFT = 33;
+
+    private VectorMinHash() {
+    }
+
+    static int[] signature(long[] a, long[] b, int[] ids) {
+        int m = a.length;
+        int lanes = SPECIES.length();
+        long[] min = new long[m];
+        int j = 0;
+        for (; j + 4 * lanes <= m; j += 4 * lanes) {
+            LongVector a0 = LongVector.fromArray(SPECIES, a, j), b0 = LongVector.fromArray(SPECIES, b, j);
+            LongVector a1 = LongVector.fromArray(SPECIES, a, j + lanes), b1 = LongVector.fromArray(SPECIES, b, j + lanes);
+            LongVector a2 = LongVector.fromArray(SPECIES, a, j + 2 * lanes), b2 = LongVector.fromArray(SPECIES, b, j + 2 * lanes);
+            LongVector a3 = LongVector.fromArray(SPECIES, a, j + 3 * lanes), b3 = LongVector.fromArray(SPECIES, b, j + 3 * lanes);
+            LongVector m0 = LongVector.broadcast(SPECIES, Long.MAX_VALUE), m1 = m0, m2 = m0, m3 = m0;
+            for (int id : ids) {
+                m0 = m0.min(a0.mul(id).add(b0).lanewise(VectorOperators.LSHR, SHIFT));
+                m1 = m1.min(a1.mul(id).add(b1).lanewise(VectorOperators.LSHR, SHIFT));
+                m2 = m2.min(a2.mul(id).add(b2).lanewise(VectorOperators.LSHR, SHIFT));
+                m3 = m3.min(a3.mul(id).add(b3).lanewise(VectorOperators.LSHR, SHIFT));
+            }
+            m0.intoArray(min, j);
+            m1.intoArray(min, j + lanes);
+            m2.intoArray(min, j + 2 * lanes);
+            m3.intoArray(min, j + 3 * lanes);
+        }
+        for (; j + lanes <= m; j += lanes) {
+            LongVector av = LongVector.fromArray(SPECIES, a, j), bv = LongVector.fromArray(SPECIES, b, j);
+            LongVector mv = LongVector.broadcast(SPECIES, Long.MAX_VALUE);
+            for (int id : ids) mv = mv.min(av.mul(id).add(bv).lanewise(VectorOperators.LSHR, SHIFT));
+            mv.intoArray(min, j);
+        }
+        // Fonctions restantes (m non multiple du nombre de voies)
+        for (; j < m; j++) {
+            long value = Long.MAX_VALUE;
+            for (int id : ids) value = Math.min(value, (a[j] * id + b[j]) >>> SHIFT);
+            min[j] = value;
+        }
+
+        int[] signature = new int[m];
+        for (int k = 0; k < m; k++) signature[k] = (int) Math.min(min[k], Integer.MAX_VALUE);
+        return signature;
+    }
+}
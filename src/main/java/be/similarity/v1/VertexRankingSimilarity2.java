@@ -1,83 +1,153 @@
 package be.similarity.v1;
 
+import be.graph.CompactGraph;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import org.jgrapht.graph.DirectedMultigraph;
 
-import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Arrays;
+import java.util.Map;
 
 public class VertexRankingSimilarity2<V, E> {
 
     public double vertexRankingSimilarity(DirectedMultigraph<V, E> g1, DirectedMultigraph<V, E> g2, Map<String, Double> pr1, Map<String, Double>  pr2) {
-        // Calcule l’union des ensembles de sommets des deux graphes.
-        Set<V> union = new HashSet<>();
-        union.addAll(g1.vertexSet());
-        union.addAll(g2.vertexSet());
+        // Identifiants denses : les sommets de g1 (0..n1-1), puis ceux de g2 absents de g1 ; la taille finale est M = |V1 ∪ V2|.
+        int n1 = g1.vertexSet().size(), n2 = g2.vertexSet().size();
+        Object2IntOpenHashMap<V> ids = new Object2IntOpenHashMap<>(n1 + n2);
+        ids.defaultReturnValue(-1);
 
-        // 2Pour chaque sommet de l’union, on attribue son score de qualité dans chaque graphe (0.0 s’il est absent).
-        Map<V, Double> qualityG1 = new HashMap<>();
-        Map<V, Double> qualityG2 = new HashMap<>();
-        for (V v : union) {
-            qualityG1.put(v, g1.containsVertex(v) ? pr1.get(v) : 0.0);
-            qualityG2.put(v, g2.containsVertex(v) ? pr2.get(v) : 0.0);
+        // Score de qualité de chaque sommet dans son graphe (tableaux alignés sur l'ordre de vertexSet()).
+        double[] quality1 = new double[n1];
+        for (V v : g1.vertexSet()) {
+            int id = ids.size();
+            ids.put(v, id);
+            quality1[id] = pr1.get(v);
         }
+        // Correspondance entre les sommets des deux graphes (-1 si absent de l'autre graphe).
+        int[] g1ToG2 = new int[n1];
+        int[] g2ToG1 = new int[n2];
+        Arrays.fill(g1ToG2, -1);
+        double[] quality2 = new double[n2];
+        int j = 0;
+        for (V v : g2.vertexSet()) {
+            int id = ids.getInt(v);
+            if (id >= 0) {
+                g1ToG2[id] = j;
+            } else {
+                ids.put(v, ids.size());
+            }
+            g2ToG1[j] = id;
+            quality2[j++] = pr2.get(v);
+        }
+        int M = ids.size(); // nombre de sommets dans l’union
 
-        // On construit et trie la liste des sommets pour chaque graphe, par score décroissant (classement).
-        List<V> rankingG1 = new ArrayList<>(g1.vertexSet());
-        List<V> rankingG2 = new ArrayList<>(g2.vertexSet());
-        rankingG1.sort((a, b) -> Double.compare(qualityG1.get(b), qualityG1.get(a)));
-        rankingG2.sort((a, b) -> Double.compare(qualityG2.get(b), qualityG2.get(a)));
-
-        // Calcule le rang de chaque sommet dans chaque graphe.
-        //    Si le sommet est absent, il prend le rang maximal (dernière position +1).
-        Map<V, Integer> rankG1 = new HashMap<>();
-        Map<V, Integer> rankG2 = new HashMap<>();
-        int maxRankG1 = g1.vertexSet().size() + 1;
-        int maxRankG2 = g2.vertexSet().size() + 1;
+        // Rang de chaque sommet dans son graphe, par score décroissant (tri parallèle sur (score, identifiant)).
+        // Si le sommet est absent de l'autre graphe, il y prend le rang maximal (dernière position +1).
+        int[] rankG1 = Ranks.ranks(quality1);
+        int[] rankG2 = Ranks.ranks(quality2);
+        int maxRankG1 = n1 + 1;
+        int maxRankG2 = n2 + 1;
 
-        for (int i = 0; i < rankingG1.size(); i++) {
-            rankG1.put(rankingG1.get(i), i + 1);
-        }
-        for (int i = 0; i < rankingG2.size(); i++) {
-            rankG2.put(rankingG2.get(i), i + 1);
+        // Un seul passage sur l'union pour le poids w_v et le numérateur (somme pondérée des carrés des différences de rangs) :
+        //    - si le sommet existe dans les deux graphes, w_v = moyenne des scores ;
+        //    - sinon, w_v = score dans le seul graphe où il apparaît.
+        double sumW = 0.0;
+        double numerator = 0.0;
+        for (int u = 0; u < n1; u++) {
+            int u2 = g1ToG2[u];
+            double w = u2 >= 0 ? (quality1[u] + quality2[u2]) / 2.0 : quality1[u];
+            double diff = rankG1[u] - (u2 >= 0 ? rankG2[u2] : maxRankG2);
+            sumW += w;
+            numerator += w * diff * diff;
         }
-        for (V v : union) {
-            if (!rankG1.containsKey(v)) rankG1.put(v, maxRankG1);
-            if (!rankG2.containsKey(v)) rankG2.put(v, maxRankG2);
+        for (int v = 0; v < n2; v++) {
+            if (g2ToG1[v] >= 0) continue;
+            double w = quality2[v];
+            double diff = maxRankG1 - rankG2[v];
+            sumW += w;
+            numerator += w * diff * diff;
         }
 
-        //  Calcule le poids w_v pour chaque sommet:
-        //    - si le sommet existe dans les deux graphes, w_v = moyenne des scores.
-        //    - sinon, w_v = score dans le seul graphe où il apparaît.
-        Map<V, Double> w = new HashMap<>();
-        for (V v : union) {
-            double score1 = qualityG1.get(v);
-            double score2 = qualityG2.get(v);
-            if (g1.containsVertex(v) && g2.containsVertex(v))
-                w.put(v, (score1 + score2) / 2.0);
-            else
-                w.put(v, score1 + score2); // un seul score est non nul
-        }
+        // Facteur de normalisation D = somme des w_v (M - 1)², puis similarité selon la formule normalisée
+        double D = sumW * (double) (M - 1) * (M - 1);
+        double simVR = 1.0 - 2.0 * numerator / D;
+        return simVR;
+    }
 
-        // Calcule le facteur de normalisation D
-        int M = Stream.concat(g1.vertexSet().stream(), g2.vertexSet().stream())
-                .collect(Collectors.toSet())
-                .size(); // nombre de sommets dans l’union
-        double D = 0.0;
-        for (V v : union) {
-            D += w.get(v) * Math.pow(M - 1, 2);
+    /**
+     * Version graphes compacts (CSR ou WebGraph) : les scores sont des tableaux alignés sur les identifiants de chaque graphe.
+     * L'union est indexée sans table de hachage : les sommets de g1, puis ceux de g2 absents de g1.
+     */
+    public static double vertexRankingSimilarity(CompactGraph g1, CompactGraph g2, double[] pr1, double[] pr2) {
+        int n1 = g1.vertexCount(), n2 = g2.vertexCount();
+        int[] toG2 = g1.dictionary().mapTo(g2.dictionary());
+        int[] toG1 = g2.dictionary().mapTo(g1.dictionary());
+
+        // Rang (1..n) de chaque sommet dans son graphe, par score décroissant (égalités : ordre de chargement).
+        int[] rankG1 = Ranks.ranks(pr1, g1.dictionary());
+        int[] rankG2 = Ranks.ranks(pr2, g2.dictionary());
+        int maxRankG1 = n1 + 1;
+        int maxRankG2 = n2 + 1;
+
+        int M = n1;
+        for (int v = 0; v < n2; v++) {
+            if (toG1[v] < 0) M++;
         }
 
-        // Calcule le numérateur de la formule (somme pondérée des carrés des différences de rangs)
+        double sumW = 0.0;
         double numerator = 0.0;
-        for (V v : union) {
-            int pi1 = rankG1.get(v);
-            int pi2 = rankG2.get(v);
-            numerator += w.get(v) * Math.pow(pi1 - pi2, 2);
+        for (int u = 0; u < n1; u++) {
+            int u2 = toG2[u];
+            double w = u2 >= 0 ? (pr1[u] + pr2[u2]) / 2.0 : pr1[u];
+            double diff = rankG1[u] - (u2 >= 0 ? rankG2[u2] : maxRankG2);
+            sumW += w;
+            numerator += w * diff * diff;
+        }
+        for (int v = 0; v < n2; v++) {
+            if (toG1[v] >= 0) continue;
+            double w = pr2[v];
+            double diff = maxRankG1 - rankG2[v];
+            sumW += w;
+            numerator += w * diff * diff;
         }
+        double D = sumW * (double) (M - 1) * (M - 1);
+        return 1.0 - 2.0 * numerator / D;
+    }
 
-        // Calcule la similarité finale selon la formule normalisée
-        double simVR = 1.0 - 2.0 * numerator / D;
-        return simVR;
+    /**
+     * Version graphes préparés (voir PreparedGraph) : l'union des sommets est parcourue par fusion des hachages,
+     * avec les rangs calculés à la préparation.
+     */
+    public static double vertexRankingSimilarity(PreparedGraph g1, PreparedGraph g2) {
+        g1.requireScores();
+        g2.requireScores();
+        int n1 = g1.distinctVertices(), n2 = g2.distinctVertices();
+        int maxRankG1 = g1.vertexCount() + 1;
+        int maxRankG2 = g2.vertexCount() + 1;
+
+        long M = 0;
+        double sumW = 0.0;
+        double numerator = 0.0;
+        int u = 0, v = 0;
+        while (u < n1 || v < n2) {
+            int c = u == n1 ? 1 : v == n2 ? -1 : Long.compare(g1.hash(u), g2.hash(v));
+            double w, diff;
+            if (c == 0) {
+                w = (g1.score(u) + g2.score(v)) / 2.0;
+                diff = g1.rank(u) - g2.rank(v);
+            } else if (c < 0) {
+                w = g1.score(u);
+                diff = g1.rank(u) - maxRankG2;
+            } else {
+                w = g2.score(v);
+                diff = maxRankG1 - g2.rank(v);
+            }
+            if (c <= 0) u++;
+            if (c >= 0) v++;
+            sumW += w;
+            numerator += w * diff * diff;
+            M++;
+        }
+        double D = sumW * (double) (M - 1) * (M - 1);
+        return 1.0 - 2.0 * numerator / D;
     }
 }
@@ -1,95 +1,255 @@
 package be.similarity.v1;
 
+import be.graph.CompactGraph;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DirectedMultigraph;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 public class vertexEdgeVectorSimilarityVS3 {
+    // Nombre visé d'arêtes par bloc de sommets sources traité en parallèle
+    private static final int BLOCK_EDGES = 1 << 16;
+
+    /**
+     * Les arêtes de chaque graphe deviennent des clés long (source << 32 | cible) sur une numérotation commune des sommets,
+     * triées : les voisins sortants de u forment un segment contigu et croissant. Pour chaque source, les deux segments
+     * sont fusionnés, ce qui parcourt les arêtes distinctes de l'union sans la construire. Les sources sont réparties
+     * en blocs (fixés par les données, pas par le nombre de threads) et les sommes partielles sont combinées
+     * dans l'ordre des blocs.
+     */
     public static double vertexEdgeVectorSimilarity(
             DirectedMultigraph<String, DefaultEdge> G,
             DirectedMultigraph<String, DefaultEdge> Gp,
             Map<String, Double> prG,
             Map<String, Double> prGp) {
 
-        // On pré-calcule pour chaque sommet l’ensemble de ses voisins sortants dans G et dans Gp.
-        Map<String, Set<String>> outNeighborsG = new HashMap<>();
-        for (String u : G.vertexSet()) {
-            outNeighborsG.put(u, G.outgoingEdgesOf(u).stream()
-                    .map(G::getEdgeTarget).collect(Collectors.toSet()));
-        }
-        Map<String, Set<String>> outNeighborsGp = new HashMap<>();
+        // Numérotation de l'union des sommets et qualité de chaque sommet dans G et dans Gp (souvent un score PageRank, 0 si absent).
+        Object2IntOpenHashMap<String> ids = new Object2IntOpenHashMap<>(G.vertexSet().size() + Gp.vertexSet().size());
+        ids.defaultReturnValue(-1);
+        for (String u : G.vertexSet()) ids.put(u, ids.size());
         for (String u : Gp.vertexSet()) {
-            outNeighborsGp.put(u, Gp.outgoingEdgesOf(u).stream()
-                    .map(Gp::getEdgeTarget).collect(Collectors.toSet()));
+            if (ids.getInt(u) < 0) ids.put(u, ids.size());
+        }
+        int n = ids.size();
+        double[] quality = new double[n];
+        double[] qualityP = new double[n];
+        for (Object2IntMap.Entry<String> entry : ids.object2IntEntrySet()) {
+            quality[entry.getIntValue()] = prG.getOrDefault(entry.getKey(), 0.0);
+            qualityP[entry.getIntValue()] = prGp.getOrDefault(entry.getKey(), 0.0);
         }
 
-        //On construit l’union de toutes les arêtes (u,v) présentes dans G ou dans Gp.
-        //    Cela garantit qu’on compare toutes les arêtes, même si elles n’existent que dans un seul graphe.
-        Set<PairCusstom> unionEdges = new HashSet<>();
-        for (DefaultEdge e : G.edgeSet()) {
-            String u = G.getEdgeSource(e), v = G.getEdgeTarget(e);
-            unionEdges.add(new PairCusstom(u, v));
+        long[] edges = edgeKeys(G, ids);
+        long[] edgesP = edgeKeys(Gp, ids);
+
+        int[] blocks = blocks(edges, edgesP, n);
+        int blockCount = blocks.length - 1;
+        double[] partialNormDiff = new double[blockCount];
+        long[] partialCount = new long[blockCount];
+        IntStream.range(0, blockCount).parallel().forEach(b -> {
+            double totalNormDiff = 0.0;
+            long m = 0;
+            int i = lowerBound(edges, blocks[b]), end = lowerBound(edges, blocks[b + 1]);
+            int j = lowerBound(edgesP, blocks[b]), endP = lowerBound(edgesP, blocks[b + 1]);
+            while (i < end || j < endP) {
+                // Segments de la prochaine source u dans G et dans Gp (l'un des deux peut être vide)
+                int u = (int) (Math.min(i < end ? edges[i] : Long.MAX_VALUE, j < endP ? edgesP[j] : Long.MAX_VALUE) >>> 32);
+                int segEnd = segmentEnd(edges, i, end, u);
+                int segEndP = segmentEnd(edgesP, j, endP, u);
+
+                // Nombre total de voisins sortants (distincts) de u dans chaque graphe.
+                int sumOutG_u = countDistinct(edges, i, segEnd);
+                int sumOutGp_u = countDistinct(edgesP, j, segEndP);
+                double qu = quality[u], qup = qualityP[u];
+
+                // Fusion des voisins : chaque cible v donne une arête (u,v) de l'union.
+                while (i < segEnd || j < segEndP) {
+                    long key = Math.min(i < segEnd ? edges[i] : Long.MAX_VALUE, j < segEndP ? edgesP[j] : Long.MAX_VALUE);
+                    // L’arête (u,v) existe-t-elle dans chaque graphe ? Les doublons (arêtes multiples) sont sautés.
+                    boolean inG = false, inGp = false;
+                    while (i < segEnd && edges[i] == key) { inG = true; i++; }
+                    while (j < segEndP && edgesP[j] == key) { inGp = true; j++; }
+
+                    // gamma(u,v) = qualité(u) * présence(u,v) / degré sortant(u) (voir l’article de Papadimitriou)
+                    double gamma = inG ? qu / sumOutG_u : 0.0;
+                    double gamma_p = inGp ? qup / sumOutGp_u : 0.0;
+                    totalNormDiff += normDiff(gamma, gamma_p);
+                    m++;
+                }
+            }
+            partialNormDiff[b] = totalNormDiff;
+            partialCount[b] = m;
+        });
+
+        // Moyenne des différences normalisées sur toutes les arêtes de l'union.
+        double totalNormDiff = 0.0;
+        long m = 0;
+        for (int b = 0; b < blockCount; b++) {
+            totalNormDiff += partialNormDiff[b];
+            m += partialCount[b];
         }
-        for (DefaultEdge e : Gp.edgeSet()) {
-            String u = Gp.getEdgeSource(e), v = Gp.getEdgeTarget(e);
-            unionEdges.add(new PairCusstom(u, v));
+        // La similarité globale : 1 - (différence moyenne). Valeur entre 0 (très différent) et 1 (identique).
+        return 1.0 - (m > 0 ? (totalNormDiff / m) : 0.0);
+    }
+
+    // Clés triées (source << 32 | cible) des arêtes de g
+    private static long[] edgeKeys(DirectedMultigraph<String, DefaultEdge> g, Object2IntOpenHashMap<String> ids) {
+        long[] keys = new long[g.edgeSet().size()];
+        int k = 0;
+        for (String u : g.vertexSet()) {
+            long source = (long) ids.getInt(u) << 32;
+            for (DefaultEdge e : g.outgoingEdgesOf(u)) {
+                keys[k++] = source | ids.getInt(g.getEdgeTarget(e));
+            }
+        }
+        Arrays.parallelSort(keys);
+        return keys;
+    }
+
+    // Bornes des blocs de sources [blocks[b], blocks[b+1]), prises toutes les BLOCK_EDGES arêtes de chacun des graphes
+    private static int[] blocks(long[] edges, long[] edgesP, int n) {
+        IntArrayList bounds = new IntArrayList();
+        bounds.add(0);
+        for (int i = BLOCK_EDGES; i < edges.length; i += BLOCK_EDGES) bounds.add((int) (edges[i] >>> 32));
+        for (int i = BLOCK_EDGES; i < edgesP.length; i += BLOCK_EDGES) bounds.add((int) (edgesP[i] >>> 32));
+        bounds.add(n);
+        int[] sorted = bounds.toIntArray();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) sorted[count++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    // Première position dont la source est >= source
+    private static int lowerBound(long[] keys, int source) {
+        int index = Arrays.binarySearch(keys, ((long) source << 32) - 1);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private static int segmentEnd(long[] keys, int from, int end, int source) {
+        while (from < end && (int) (keys[from] >>> 32) == source) from++;
+        return from;
+    }
+
+    private static int countDistinct(long[] keys, int from, int to) {
+        int count = 0;
+        for (int k = from; k < to; k++) {
+            if (k == from || keys[k] != keys[k - 1]) count++;
         }
+        return count;
+    }
+
+    /**
+     * Version graphes compacts (CSR ou WebGraph). Les arêtes distinctes de G sont parcourues puis celles de G' absentes de G,
+     * ce qui couvre l'union sans la matérialiser ; la présence d'une arête est testée par dichotomie.
+     */
+    public static double vertexEdgeVectorSimilarity(CompactGraph G, CompactGraph Gp, double[] prG, double[] prGp) {
+        int[] toGp = G.dictionary().mapTo(Gp.dictionary());
+        int[] toG = Gp.dictionary().mapTo(G.dictionary());
 
-        // On calcule, pour chaque arête de l’union, sa pondération normalisée dans G et dans Gp.
         double totalNormDiff = 0.0;
-        for (PairCusstom uv : unionEdges) {
-            String u = uv.u, v = uv.v;
-
-            // Récupère la qualité du sommet source u dans G et dans Gp (souvent un score PageRank).
-            double qu  = prG.getOrDefault(u, 0.0);
-            double qup = prGp.getOrDefault(u, 0.0);
-
-            // Récupère les voisins sortants de u dans G et Gp.
-            Set<String> outG = outNeighborsG.getOrDefault(u, Collections.emptySet());
-            Set<String> outGp = outNeighborsGp.getOrDefault(u, Collections.emptySet());
-
-            // Nombre total de voisins sortants.
-            int sumOutG_u = outG.size();
-            int sumOutGp_u = outGp.size();
-
-            // L’arête (u,v) existe-t-elle ? (1 si oui, 0 sinon)
-            int outG_uv = outG.contains(v) ? 1 : 0;
-            int outGp_uv = outGp.contains(v) ? 1 : 0;
-
-            // Calcul du poids gamma (voir l’article de Papadimitriou)
-            // gamma(u,v) = qualité(u) * présence(u,v) / degré sortant(u)
-            double gamma   = (sumOutG_u  > 0) ? qu  * outG_uv  / sumOutG_u  : 0.0;
-            double gamma_p = (sumOutGp_u > 0) ? qup * outGp_uv / sumOutGp_u : 0.0;
-
-            // Différence relative (normalisée) entre les poids dans G et Gp.
-            double maxγ = Math.max(gamma, gamma_p);
-            double normDiff = (maxγ > 0)
-                    ? Math.abs(gamma - gamma_p) / maxγ
-                    : 0.0;
-
-            // On cumule la différence normalisée pour toutes les arêtes.
-            totalNormDiff += normDiff;
+        long m = 0;
+
+        // Arêtes (u,v) de G, présentes ou non dans G'
+        for (int u = 0; u < G.vertexCount(); u++) {
+            if (G.outDegree(u) == 0) continue;
+            int up = toGp[u];
+            int sumOutG_u = G.distinctOutDegree(u);
+            int sumOutGp_u = up >= 0 ? Gp.distinctOutDegree(up) : 0;
+            double qu = prG[u];
+            double qup = up >= 0 ? prGp[up] : 0.0;
+            IntIterator successors = G.successors(u);
+            int previous = -1;
+            while (successors.hasNext()) {
+                int v = successors.nextInt();
+                if (v == previous) continue;
+                previous = v;
+                int vp = toGp[v];
+                boolean inGp = up >= 0 && vp >= 0 && Gp.hasEdge(up, vp);
+                double gamma = qu / sumOutG_u;
+                double gamma_p = (inGp && sumOutGp_u > 0) ? qup / sumOutGp_u : 0.0;
+                totalNormDiff += normDiff(gamma, gamma_p);
+                m++;
+            }
+        }
+
+        // Arêtes de G' absentes de G : gamma = 0, la différence normalisée vaut 1 dès que gamma' > 0
+        for (int up = 0; up < Gp.vertexCount(); up++) {
+            if (Gp.outDegree(up) == 0) continue;
+            int u = toG[up];
+            int sumOutGp_u = Gp.distinctOutDegree(up);
+            double qup = prGp[up];
+            IntIterator successors = Gp.successors(up);
+            int previous = -1;
+            while (successors.hasNext()) {
+                int vp = successors.nextInt();
+                if (vp == previous) continue;
+                previous = vp;
+                int v = toG[vp];
+                if (u >= 0 && v >= 0 && G.hasEdge(u, v)) continue;
+                totalNormDiff += normDiff(0.0, qup / sumOutGp_u);
+                m++;
+            }
         }
 
-        // Moyenne des différences normalisées sur toutes les arêtes.
-        int m = unionEdges.size();
-        // La similarité globale : 1 - (différence moyenne). Valeur entre 0 (très différent) et 1 (identique).
         return 1.0 - (m > 0 ? (totalNormDiff / m) : 0.0);
     }
 
-    private static class PairCusstom {
-        final String u, v;
-        PairCusstom(String u, String v) { this.u = u; this.v = v; }
-        @Override public boolean equals(Object o) {
-            if (!(o instanceof PairCusstom)) return false;
-            PairCusstom p = (PairCusstom)o;
-            return u.equals(p.u) && v.equals(p.v);
-        }
-        @Override public int hashCode() {
-            return 31*u.hashCode() + v.hashCode();
+    /**
+     * Version graphes préparés (voir PreparedGraph) : les sources de l'union sont parcourues par fusion des hachages,
+     * puis les successeurs distincts de chaque source commune. Une arête présente dans un seul graphe contribue 1
+     * (ou 0 si la qualité de sa source est nulle).
+     */
+    public static double vertexEdgeVectorSimilarity(PreparedGraph G, PreparedGraph Gp) {
+        G.requireScores();
+        Gp.requireScores();
+        int n = G.distinctVertices(), np = Gp.distinctVertices();
+        int[] targets = G.targets(), targetsP = Gp.targets();
+        double totalNormDiff = 0.0;
+        long m = 0;
+        int u = 0, up = 0;
+        while (u < n || up < np) {
+            int c = u == n ? 1 : up == np ? -1 : Long.compare(G.hash(u), Gp.hash(up));
+            if (c < 0) {
+                int sumOutG_u = G.offset(u + 1) - G.offset(u);
+                if (sumOutG_u > 0) totalNormDiff += sumOutG_u * normDiff(G.score(u) / sumOutG_u, 0.0);
+                m += sumOutG_u;
+                u++;
+            } else if (c > 0) {
+                int sumOutGp_u = Gp.offset(up + 1) - Gp.offset(up);
+                if (sumOutGp_u > 0) totalNormDiff += sumOutGp_u * normDiff(0.0, Gp.score(up) / sumOutGp_u);
+                m += sumOutGp_u;
+                up++;
+            } else {
+                int i = G.offset(u), end = G.offset(u + 1);
+                int j = Gp.offset(up), endP = Gp.offset(up + 1);
+                int sumOutG_u = end - i, sumOutGp_u = endP - j;
+                double qu = G.score(u), qup = Gp.score(up);
+                while (i < end || j < endP) {
+                    int t = i == end ? 1 : j == endP ? -1 : Long.compare(G.hash(targets[i]), Gp.hash(targetsP[j]));
+                    double gamma = t <= 0 ? qu / sumOutG_u : 0.0;
+                    double gamma_p = t >= 0 ? qup / sumOutGp_u : 0.0;
+                    totalNormDiff += normDiff(gamma, gamma_p);
+                    m++;
+                    if (t <= 0) i++;
+                    if (t >= 0) j++;
+                }
+                u++;
+                up++;
+            }
         }
+        return 1.0 - (m > 0 ? (totalNormDiff / m) : 0.0);
     }
 
+    private static double normDiff(double gamma, double gamma_p) {
+        double maxγ = Math.max(gamma, gamma_p);
+        return (maxγ > 0) ? Math.abs(gamma - gamma_p) / maxγ : 0.0;
+    }
 }
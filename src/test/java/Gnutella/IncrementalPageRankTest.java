@@ -0,0 +1,63 @@
+package Gnutella;
+
+import be.graph.CsrGraph;
+import be.pagerank.CompactPageRank;
+import be.pagerank.IncrementalPageRank;
+import be.pagerank.ParallelPageRank;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// IncrementalPageRank.update sur des variantes d'un graphe synthétique de 20 000 sommets, comparé à un calcul à froid
+public class IncrementalPageRankTest {
+
+    @Test
+    public void updateMatchesColdPageRank() {
+        int n = 20_000;
+        Random random = new Random(7);
+        DirectedMultigraph<String, DefaultEdge> reference = new DirectedMultigraph<>(DefaultEdge.class);
+        for (int v = 0; v < n; v++) reference.addVertex("v" + v);
+        // Cibles tirées parmi les cibles déjà choisies : degrés entrants très inégaux, comme sur les graphes réels
+        int[] targets = new int[5 * n];
+        int t = 0;
+        for (int u = 1; u < n; u++) {
+            for (int j = 0; j < 5; j++) {
+                int v = t == 0 || random.nextInt(4) == 0 ? random.nextInt(u) : targets[random.nextInt(t)];
+                reference.addEdge("v" + u, "v" + v);
+                targets[t++] = v;
+            }
+        }
+        CsrGraph referenceCsr = CsrGraph.fromGraph(reference);
+        double[] referenceScores = new ParallelPageRank(0.85).scores(referenceCsr);
+
+        double tolerance = CompactPageRank.TOLERANCE_DEFAULT;
+        // 0.1 % : propagation du résidu ; 5 % et 20 % : bascule sur l'itération parallèle démarrée à chaud
+        for (double removed : new double[]{0.001, 0.05, 0.20}) {
+            DirectedMultigraph<String, DefaultEdge> g = new DirectedMultigraph<>(DefaultEdge.class);
+            reference.vertexSet().forEach(g::addVertex);
+            for (DefaultEdge e : reference.edgeSet()) {
+                if (random.nextDouble() >= removed) g.addEdge(reference.getEdgeSource(e), reference.getEdgeTarget(e));
+            }
+            CsrGraph csr = CsrGraph.fromGraph(g);
+            double[] initial = IncrementalPageRank.warmStart(csr, referenceCsr, referenceScores);
+            double[] updated = IncrementalPageRank.update(csr, initial, 0.85);
+            // Calcul à froid avec la même tolérance rapportée au nombre de sommets
+            double[] cold = new ParallelPageRank(0.85, CompactPageRank.MAX_ITERATIONS_DEFAULT, tolerance / n).scores(csr);
+
+            double error = l1(updated, cold);
+            System.out.printf("%.1f %% d'arêtes retirées : écart L1 update %.2e, départ à chaud %.2e%n",
+                    100 * removed, error, l1(initial, cold));
+            assertTrue(error <= tolerance, "écart L1 " + error + " pour " + removed);
+        }
+    }
+
+    private static double l1(double[] a, double[] b) {
+        double sum = 0;
+        for (int v = 0; v < a.length; v++) sum += Math.abs(a[v] - b[v]);
+        return sum;
+    }
+}
@@ -0,0 +1,41 @@
+package Gnutella;
+
+import be.graph.CsrGraph;
+import be.pagerank.ParallelPageRank;
+import org.jgrapht.alg.scoring.PageRank;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static be.Main.parseGraph;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Compare ParallelPageRank (CSR, plusieurs threads) à org.jgrapht.alg.scoring.PageRank sur un graphe de ressources
+public class ParallelPageRankTest {
+
+    @Test
+    public void matchesJgraphtPageRank() throws IOException {
+        String file = "src/main/resources/p2p-Gnutella08.txt";
+        DirectedMultigraph<String, DefaultEdge> graph = parseGraph(file);
+        Map<String, Double> expected = new PageRank<>(graph, 0.85).getScores();
+
+        CsrGraph csr = CsrGraph.load(Path.of(file));
+        double[] scores = new ParallelPageRank(0.85).parallelism(4).scores(csr);
+        assertEquals(expected.size(), scores.length);
+        double maxDifference = 0;
+        for (int v = 0; v < scores.length; v++) {
+            double difference = Math.abs(scores[v] - expected.get(csr.label(v)));
+            maxDifference = Math.max(maxDifference, difference);
+            assertEquals(expected.get(csr.label(v)), scores[v], 1e-12, csr.label(v));
+        }
+        System.out.printf("%d sommets, écart max avec jgrapht : %.3e%n", scores.length, maxDifference);
+
+        // Les blocs ne dépendent pas du nombre de threads : résultat identique en séquentiel
+        assertArrayEquals(scores, new ParallelPageRank(0.85).parallelism(1).scores(csr));
+    }
+}
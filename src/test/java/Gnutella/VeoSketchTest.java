@@ -0,0 +1,109 @@
+package Gnutella;
+
+import be.similarity.v1.SimilarityVEO1Sketch;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static be.Main.parseGraph;
+import static be.similarity.v1.SimilarityVEO1.veoSimilarity;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Compare l'estimation de VEO par esquisse à la valeur exacte sur les scénarios de output/similarity
+public class VeoSketchTest {
+
+    @Test
+    public void sketchMatchesExactVeo() throws IOException {
+        DirectedMultigraph<String, DefaultEdge> reference = parseGraph("src/main/resources/p2p-Gnutella31.txt");
+        SimilarityVEO1Sketch referenceSketch = SimilarityVEO1Sketch.of(reference);
+        // Précision visée : ±0.01. Les scénarios perturbent peu la référence (J >= 0.9), où l'écart-type de
+        // l'esquisse est au plus 0.002 : 0.01 laisse 5 écarts-types
+
+        String[] allCases = {
+                "removeRandomVertices",
+                "removeRandomEdges",
+                "removeConnectedSubgraph",
+                "addRandomEdges",
+                "addDenseSubgraph",
+                "rewireEdges",
+                "invertEdges"
+        };
+        for (String cas : allCases) {
+            for (File file : testAllSimilarities.getFilesToCompare("output/similarity/" + cas)) {
+                DirectedMultigraph<String, DefaultEdge> g = parseGraph(file.toString());
+
+                long start = System.nanoTime();
+                double exact = veoSimilarity(reference, g);
+                long exactTime = System.nanoTime() - start;
+
+                SimilarityVEO1Sketch sketch = SimilarityVEO1Sketch.of(g);
+                start = System.nanoTime();
+                double estimate = referenceSketch.estimate(sketch);
+                long sketchTime = System.nanoTime() - start;
+
+                System.out.printf("%s exact=%.5f (%d µs) esquisse=%.5f (%d µs) écart=%.5f%n", file.getName(),
+                        exact, exactTime / 1000, estimate, sketchTime / 1000, Math.abs(estimate - exact));
+                assertEquals(exact, estimate, 0.01, file.getName());
+            }
+        }
+    }
+
+    // Graphe synthétique plus grand que les esquisses : l'estimation bottom-k est toujours utilisée,
+    // quelle que soit la taille des fichiers de output/similarity
+    @Test
+    public void sketchEstimatesVeoOnLargerGraphs() {
+        Random random = new Random(42);
+        DirectedMultigraph<String, DefaultEdge> reference = new DirectedMultigraph<>(DefaultEdge.class);
+        int n = 20_000;
+        for (int v = 0; v < n; v++) reference.addVertex("v" + v);
+        while (reference.edgeSet().size() < 100_000) addRandomEdge(reference, random, n);
+
+        List<DirectedMultigraph<String, DefaultEdge>> variants = new ArrayList<>();
+        for (double removed : new double[]{0.02, 0.05, 0.10}) {
+            DirectedMultigraph<String, DefaultEdge> g = copy(reference);
+            for (DefaultEdge e : new ArrayList<>(reference.edgeSet())) {
+                if (random.nextDouble() < removed) g.removeEdge(reference.getEdgeSource(e), reference.getEdgeTarget(e));
+            }
+            variants.add(g);
+        }
+        DirectedMultigraph<String, DefaultEdge> added = copy(reference);
+        for (int v = n; v < n + 1000; v++) added.addVertex("v" + v);
+        for (int e = 0; e < 5_000; e++) addRandomEdge(added, random, n + 1000);
+        variants.add(added);
+
+        // k = 256 : pour des graphes proches (J >= 0.9), écart-type <= 2 sqrt(0.09) / 1.9² / sqrt(k) ≈ 0.166 / sqrt(k)
+        int small = 256;
+        double smallBound = 4 * 0.166 / Math.sqrt(small);
+        assertTrue(reference.vertexSet().size() > SimilarityVEO1Sketch.DEFAULT_SIZE);
+        SimilarityVEO1Sketch referenceSketch = SimilarityVEO1Sketch.of(reference);
+        SimilarityVEO1Sketch referenceSmall = SimilarityVEO1Sketch.of(reference, small);
+        for (DirectedMultigraph<String, DefaultEdge> g : variants) {
+            double exact = veoSimilarity(reference, g);
+            double estimate = referenceSketch.estimate(SimilarityVEO1Sketch.of(g));
+            double smallEstimate = referenceSmall.estimate(SimilarityVEO1Sketch.of(g, small));
+            System.out.printf("exact=%.5f esquisse=%.5f esquisse k=%d : %.5f%n", exact, estimate, small, smallEstimate);
+            assertEquals(exact, estimate, 0.01);
+            assertEquals(exact, smallEstimate, smallBound);
+        }
+    }
+
+    // Arête entre deux sommets distincts de v0..v(n-1) (DirectedMultigraph refuse les boucles)
+    private static void addRandomEdge(DirectedMultigraph<String, DefaultEdge> graph, Random random, int n) {
+        int u = random.nextInt(n), v = random.nextInt(n);
+        if (u != v) graph.addEdge("v" + u, "v" + v);
+    }
+
+    private static DirectedMultigraph<String, DefaultEdge> copy(DirectedMultigraph<String, DefaultEdge> graph) {
+        DirectedMultigraph<String, DefaultEdge> copy = new DirectedMultigraph<>(DefaultEdge.class);
+        for (String v : graph.vertexSet()) copy.addVertex(v);
+        for (DefaultEdge e : graph.edgeSet()) copy.addEdge(graph.getEdgeSource(e), graph.getEdgeTarget(e));
+        return copy;
+    }
+}
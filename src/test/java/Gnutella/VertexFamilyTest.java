@@ -0,0 +1,69 @@
+package Gnutella;
+
+import be.graph.CsrGraph;
+import be.graph.VertexFamily;
+import be.pagerank.ParallelPageRank;
+import be.similarity.v1.VertexRankingSimilarity2;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedMultigraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// VR sur des graphes rattachés à une famille (donc renumérotés) identique à VR sur les mêmes graphes autonomes
+public class VertexFamilyTest {
+
+    @Test
+    public void boundGraphsKeepVertexRankingSimilarity() {
+        Random random = new Random(11);
+        DirectedMultigraph<String, DefaultEdge> reference = new DirectedMultigraph<>(DefaultEdge.class);
+        int n = 2_000;
+        for (int v = 0; v < n; v++) reference.addVertex("v" + v);
+        // Un sommet sur deux sans prédécesseur : beaucoup de scores égaux, départagés par l'ordre des sommets
+        for (int u = 0; u < n; u++) {
+            for (int j = 0; j < 3; j++) {
+                int v = 2 * random.nextInt(n / 2) + 1;
+                if (v != u) reference.addEdge("v" + u, "v" + v);
+            }
+        }
+        DirectedMultigraph<String, DefaultEdge> variant = new DirectedMultigraph<>(DefaultEdge.class);
+        // Ordre des sommets inversé et quelques sommets nouveaux en tête : la famille impose une autre numérotation
+        for (int v = 0; v < 100; v++) variant.addVertex("w" + v);
+        for (int v = n - 1; v >= 0; v--) variant.addVertex("v" + v);
+        for (DefaultEdge e : reference.edgeSet()) {
+            if (random.nextDouble() >= 0.1) variant.addEdge(reference.getEdgeSource(e), reference.getEdgeTarget(e));
+        }
+        for (int v = 0; v < 100; v++) variant.addEdge("w" + v, "v" + (2 * random.nextInt(n / 2) + 1));
+
+        CsrGraph g1 = CsrGraph.fromGraph(reference);
+        CsrGraph g2 = CsrGraph.fromGraph(variant);
+        ParallelPageRank pageRank = new ParallelPageRank(0.85);
+        double[] pr1 = pageRank.scores(g1);
+        double[] pr2 = pageRank.scores(g2);
+        double unbound = VertexRankingSimilarity2.vertexRankingSimilarity(g1, g2, pr1, pr2);
+
+        VertexFamily family = VertexFamily.create();
+        CsrGraph b1 = family.graph(reference);
+        CsrGraph b2 = family.graph(variant);
+        // Mêmes scores, réalignés sur les identifiants de famille : seul l'ordre des égalités pourrait changer
+        double[] bound1 = realign(pr1, g1, b1);
+        double[] bound2 = realign(pr2, g2, b2);
+        int[] toLocal = b2.dictionary().mapTo(g2.dictionary());
+        boolean renumbered = false;
+        for (int v = 0; v < toLocal.length && !renumbered; v++) renumbered = toLocal[v] != v;
+        assertTrue(renumbered, "la variante devrait être renumérotée");
+
+        double bound = VertexRankingSimilarity2.vertexRankingSimilarity(b1, b2, bound1, bound2);
+        assertEquals(unbound, bound, 0.0);
+    }
+
+    private static double[] realign(double[] scores, CsrGraph local, CsrGraph bound) {
+        int[] toLocal = bound.dictionary().mapTo(local.dictionary());
+        double[] realigned = new double[toLocal.length];
+        for (int v = 0; v < toLocal.length; v++) realigned[v] = scores[toLocal[v]];
+        return realigned;
+    }
+}
@@ -1,8 +1,9 @@
 package webbaiduBaike;
 
-import be.similarity.v1.SignatureSimilarity5;
-import be.similarity.v1.VertexRankingSimilarity2;
-import be.similarity.v1.vertexEdgeVectorSimilarityVS3;
+import be.similarity.AllPairsSimilarity;
+import be.similarity.SimilarityEvaluator;
+import be.similarity.SimilarityMethod;
+import be.similarity.SimilarityMethods;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DirectedMultigraph;
 import org.junit.jupiter.api.*;
@@ -11,26 +12,23 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleBiFunction;
 
-import static be.FileUtils.readScoresFromCSV;
+import static be.FileUtils.readScores;
 import static be.Main.parseGraph;
-import static be.similarity.v1.SequenceSimilarityJaccard4.*;
-import static be.similarity.v1.SequenceSimilarityJaccard4MinHash.*;
-import static be.similarity.v1.SimilarityVEO1.veoSimilarity;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class AllTest {
 
     static final DirectedMultigraph<String, DefaultEdge> reference;
     static final Map<String, Double> pr1;
-    static final  List<int[]> hashFunctions400;
     static {
         try {
-            hashFunctions400 = generateHashFunctions(400);
             reference = parseGraph("output/small_graphs/web-baidu-baike_small_00000.txt");
-            pr1 = readScoresFromCSV("pageRanks/pagerank_scores_web-baidu-baike_small_00000.txt.csv");
+            pr1 = readScores("pageRanks/pagerank_scores_web-baidu-baike_small_00000.txt.prs", reference);
         } catch (IOException e) {
             throw new RuntimeException(e);
         } catch (Exception e) {
@@ -38,46 +36,17 @@ public class AllTest {
         }
     }
 
-    private interface SimilarityFunction {
-        double compute(DirectedMultigraph<String, DefaultEdge> g1, DirectedMultigraph<String, DefaultEdge> g2,   Map<String, Double> pr1, Map<String, Double> pr2);
-    }
+    // Les sept méthodes du registre (voir SimilarityMethods)
+    public static final List<SimilarityMethod<?>> METHODS = SimilarityMethods.standard();
 
-    public static final List<Map.Entry<String, SimilarityFunction>> METHODS = List.of(
-
-            Map.entry("veo", (g1, g2, pr1, pr2) -> veoSimilarity(g1, g2)),
-            Map.entry("VertexRankingSimilarity", (g1, g2,pr1, pr2) -> new VertexRankingSimilarity2<String, DefaultEdge>().vertexRankingSimilarity(g1, g2, pr1, pr2)),
-            Map.entry("vertexEdgeSimilarity", vertexEdgeVectorSimilarityVS3::vertexEdgeVectorSimilarity),
-            Map.entry("shingles", (g1, g2, pr1,pr2) -> {
-                List<String> seqG1 = serializeGraph(g1, pr1);
-                List<String> seqG2 = serializeGraph(g2, pr2);
-                Set<String> shG1 = shingles(seqG1, 3);
-                Set<String> shG2 = shingles(seqG2, 3);
-                return jaccardSimilarity(shG1, shG2);
-            }),
-            Map.entry("minHash400", (g1, g2, pr1,pr2) -> {
-
-                List<String> seq1 = serializeGraphMinHash(g1, pr1);
-                List<String> seq2 = serializeGraphMinHash(g2, pr2);
-
-                Set<Integer> shingles1 = shingleIds(seq1, 3);
-                Set<Integer> shingles2 = shingleIds(seq2, 3);
-
-                int[] sig1J = minHashSignature(shingles1, hashFunctions400);
-                int[] sig2J = minHashSignature(shingles2, hashFunctions400);
-
-                return estimateMinHashSimilarity(sig1J, sig2J);
-            }),
-            Map.entry("signature128", (g1, g2, pr1,pr2) -> {
-                BitSet sig1 = SignatureSimilarity5.computeSignature(g1, pr1, 128);
-                BitSet sig2 = SignatureSimilarity5.computeSignature(g2, pr2, 128);
-                return SignatureSimilarity5.computeSimilarity(sig1, sig2, 128);
-            }),
-            Map.entry("signature512", (g1, g2, pr1, pr2) -> {
-                BitSet sig1 = SignatureSimilarity5.computeSignature(g1, pr1, 512);
-                BitSet sig2 = SignatureSimilarity5.computeSignature(g2, pr2, 512);
-                return SignatureSimilarity5.computeSimilarity(sig1, sig2, 512);
-            })
-    );
+    // Une méthode seule : la référence est préparée une fois ; le temps mesuré par graphe est sa préparation
+    // (avec ses propres résultats intermédiaires, sans partage entre méthodes) plus la comparaison.
+    static ToDoubleBiFunction<DirectedMultigraph<String, DefaultEdge>, Map<String, Double>> against(
+            SimilarityMethod<?> method, DirectedMultigraph<String, DefaultEdge> ref, Map<String, Double> pr) {
+        SimilarityEvaluator evaluator = new SimilarityEvaluator(List.of(method));
+        SimilarityEvaluator.Prepared prepared = evaluator.prepare(ref, pr);
+        return (g, pr2) -> evaluator.compare(0, prepared, evaluator.artifacts(g, pr2));
+    }
 
     static File[] getFilesToCompare(String rootDir) {
         String dirPath = String.format("%s/", rootDir);
@@ -92,11 +61,13 @@ public class AllTest {
 
     void benchmarkAllMethodsOnIncreasingSize(
             String rootDir,
-            List<Map.Entry<String, SimilarityFunction>> methods
+            List<SimilarityMethod<?>> methods
     ) throws Exception {
 
 
         File[] files = getFilesToCompare(rootDir);
+        List<ToDoubleBiFunction<DirectedMultigraph<String, DefaultEdge>, Map<String, Double>>> compared = new ArrayList<>();
+        for (var method : methods) compared.add(against(method, reference, pr1));
         String outCsv = "results/vertexChangeGraphs/increasingSize_all_methods.csv";
         File outFile = new File(outCsv);
         outFile.getParentFile().mkdirs();
@@ -104,20 +75,19 @@ public class AllTest {
         try (PrintWriter pw = new PrintWriter(new FileWriter(outFile))) {
             // en-tête
             pw.print("filename,vertexes,edges");
-            for (var method : methods) pw.print("," + method.getKey());
+            for (var method : methods) pw.print("," + method.name());
             pw.println();
 
             // Pour chaque graphe
             for (File f : files) {
                 DirectedMultigraph<String, DefaultEdge> g = parseGraph(f.toString());
                 String graphFileName = f.getName();
-                String pagerankCsvPath = "pageRanks/pagerank_scores_" + graphFileName + ".csv";
-                Map<String, Double> pr2 = readScoresFromCSV(pagerankCsvPath);
+                Map<String, Double> pr2 = readScores("pageRanks/pagerank_scores_" + graphFileName + ".prs", g);
 
                 pw.printf(Locale.US,"%s,%d,%d", graphFileName, g.vertexSet().size(), g.edgeSet().size());
-                for (var method : methods) {
+                for (var method : compared) {
                     long start = System.nanoTime();
-                    method.getValue().compute(reference, g, pr1, pr2);
+                    method.applyAsDouble(g, pr2);
                     double elapsed = (System.nanoTime() - start) / 1e9;
                     pw.printf(Locale.US,",%.4f", elapsed);
                 }
@@ -132,11 +102,13 @@ public class AllTest {
             String rootDir,
             String outCsv,
             double[] densities,
-            List<Map.Entry<String, SimilarityFunction>> methods,
+            List<SimilarityMethod<?>> methods,
             boolean printConsole // facultatif, pour choisir d’afficher ou pas
     ) throws Exception {
         DirectedMultigraph<String, DefaultEdge> ref = parseGraph(referencePath);
-        Map<String, Double> pr1local = readScoresFromCSV(pr1Path);
+        Map<String, Double> pr1local = readScores(pr1Path, ref);
+        List<ToDoubleBiFunction<DirectedMultigraph<String, DefaultEdge>, Map<String, Double>>> compared = new ArrayList<>();
+        for (var method : methods) compared.add(against(method, ref, pr1local));
 
         File[] files = getFilesToCompare(rootDir);
         File outFile = new File(outCsv);
@@ -145,7 +117,7 @@ public class AllTest {
         try (PrintWriter pw = new PrintWriter(new FileWriter(outFile))) {
             // En-tête CSV
             pw.print("filename,vertexes,edges,density");
-            for (var method : methods) pw.print("," + method.getKey());
+            for (var method : methods) pw.print("," + method.name());
             pw.println();
 
             for (Double density : densities) {
@@ -157,16 +129,15 @@ public class AllTest {
 
                 DirectedMultigraph<String, DefaultEdge> g = parseGraph(f1.toString());
                 String graphFileName = f1.getName();
-                String pagerankCsvPath = "pageRanks/pagerank_scores_" + graphFileName + ".csv";
-                Map<String, Double> pr2 = readScoresFromCSV(pagerankCsvPath);
+                Map<String, Double> pr2 = readScores("pageRanks/pagerank_scores_" + graphFileName + ".prs", g);
 
                 pw.printf(Locale.US, "%s,%d,%d,%.2f", graphFileName, g.vertexSet().size(), g.edgeSet().size(), density*100);
-                for (var method : methods) {
+                for (int m = 0; m < methods.size(); m++) {
                     long start = System.nanoTime();
-                    method.getValue().compute(ref, g, pr1local, pr2);
+                    compared.get(m).applyAsDouble(g, pr2);
                     double elapsed = (System.nanoTime() - start) / 1e9;
                     if (printConsole)
-                        System.out.println(method.getKey() + " elapsed=" + elapsed);
+                        System.out.println(methods.get(m).name() + " elapsed=" + elapsed);
                     pw.printf(Locale.US, ",%.4f", elapsed);
                 }
                 pw.println();
@@ -178,7 +149,7 @@ public class AllTest {
 
 
     void benchmarkAllMethodsExecutionCount(String rootDir,
-                                           List<Map.Entry<String, SimilarityFunction>> methods
+                                           List<SimilarityMethod<?>> methods
     ) throws Exception {
         File[] files = getFilesToCompare(rootDir);
         String outCsv = "results/small_graphs/executionTime/all_methods.csv";
@@ -189,6 +160,7 @@ public class AllTest {
             pw.println("method,count"); // en-tête du CSV
 
             for (var method : methods) {
+                var compared = against(method, reference, pr1);
                 int count = 0;
                 long DUREE = TimeUnit.MINUTES.toNanos(1); // 1 minute
                 long timeOnlyInComparaisonSimilarity = 0;
@@ -198,11 +170,10 @@ public class AllTest {
                     if (i == files.length) i = 0; // boucle sur les fichiers
                     DirectedMultigraph<String, DefaultEdge> g = parseGraph(files[i].toString());
                     String graphFileName = files[i].getName();
-                    String pagerankCsvPath = "pageRanks/pagerank_scores_" + graphFileName + ".csv";
-                    Map<String, Double> pr2 = readScoresFromCSV(pagerankCsvPath);
+                    Map<String, Double> pr2 = readScores("pageRanks/pagerank_scores_" + graphFileName + ".prs", g);
 
                     long begin = System.nanoTime();
-                    method.getValue().compute(reference, g, pr1, pr2);
+                    compared.applyAsDouble(g, pr2);
                     long end = System.nanoTime();
 
                     timeOnlyInComparaisonSimilarity += (end - begin);
@@ -211,8 +182,8 @@ public class AllTest {
 
                     if (timeOnlyInComparaisonSimilarity > DUREE) break;
                 }
-                System.out.printf("[%s] %d graphes comparés en 1 min%n", method.getKey(), count);
-                pw.printf("%s,%d%n", method.getKey(), count);
+                System.out.printf("[%s] %d graphes comparés en 1 min%n", method.name(), count);
+                pw.printf("%s,%d%n", method.name(), count);
             }
         }
     }
@@ -225,6 +196,26 @@ public class AllTest {
     }
 
 
+    // Toutes les paires des petits graphes pour les sept méthodes : matrice complète, puis 10 plus proches voisins
+    @Test
+    @Tag("allPairs")
+    public void smallGraphsAllPairs() throws Exception {
+        List<File> files = Arrays.asList(getFilesToCompare("output/small_graphs"));
+        AllPairsSimilarity allPairs = new AllPairsSimilarity(SimilarityEvaluator.standard(),
+                f -> parseGraph(f.toString()),
+                (f, g) -> readScores("pageRanks/pagerank_scores_" + f.getName() + ".prs", g))
+                .csv(true)
+                .progress((phase, done, total) -> System.out.printf("[%s] %d / %d%n", phase, done, total), 5_000);
+
+        long start = System.nanoTime();
+        allPairs.run(files, Path.of("results/small_graphs/allPairs/full"));
+        System.out.printf("Matrice complète : %.2f s%n", (System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        allPairs.topK(10).run(files, Path.of("results/small_graphs/allPairs/top10"));
+        System.out.printf("Top 10 : %.2f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
     @Test
     @Tag("vertexChangeGraphs")
     @Order(9)
@@ -241,7 +232,7 @@ public class AllTest {
         double[] densities = {0.1, 0.2, 0.5};
         benchmarkAllMethodsOnDensities(
                 "src/main/resources/web-baidu-baike.txt",
-                "pageRanks/pagerank_scores_web-baidu-baike.txt.csv",
+                "pageRanks/pagerank_scores_web-baidu-baike.txt.prs",
                 "output/vertexChangePercentageGraphs",
                 "results/vertexChangePercentageGraphs/density_all_methods.csv",
                 densities,
@@ -258,7 +249,7 @@ public class AllTest {
         double[] densities = {0.1, 0.2, 0.5};
         benchmarkAllMethodsOnDensities(
                 "src/main/resources/web-baidu-baike.txt",
-                "pageRanks/pagerank_scores_web-baidu-baike.txt.csv",
+                "pageRanks/pagerank_scores_web-baidu-baike.txt.prs",
                 "output/densityStaticGraphs",
                 "results/densityStaticGraphs/density_all_methods.csv",
                 densities,